@@ -0,0 +1,29 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Core counts for the scaling benchmarks: 1, 2, 4, ... up to
+// the cores available, always ending on the full core count
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package common;
+
+import java.util.Arrays;
+
+public final class CoreCounts {
+
+  private CoreCounts() {
+  }
+
+  public static int[] upTo(int cores) {
+    int[] counts = new int[33];
+    int count = 0;
+    for (int parallelism = 1; parallelism < cores; parallelism *= 2) {
+      counts[count++] = parallelism;
+    }
+    counts[count++] = Math.max(cores, 1);
+    return Arrays.copyOf(counts, count);
+  }
+
+  public static int[] available() {
+    return upTo(Runtime.getRuntime().availableProcessors());
+  }
+}
@@ -0,0 +1,116 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 1 - SnowCalibration
+// Batch mode: totals every calibration file in a directory or
+// matching a glob, one virtual thread per file, in a single JVM
+// usage: CalibrationBatch <directory|glob> [maxOpenFiles]
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+public class CalibrationBatch {
+  // Default cap on files being read at the same time
+  private static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+  // Total for one calibration file
+  public record FileTotal(Path file, long total) {
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("usage: CalibrationBatch <directory|glob> [maxOpenFiles]");
+      return;
+    }
+    int maxOpenFiles = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_OPEN_FILES;
+
+    try {
+      List<FileTotal> totals = sumAll(findFiles(args[0]), CalibrationEngine.SCALAR, maxOpenFiles);
+      long grandTotal = 0;
+      for (FileTotal fileTotal : totals) {
+        System.out.println(fileTotal.file() + ": " + fileTotal.total());
+        grandTotal += fileTotal.total();
+      }
+      System.out.println("Files: " + totals.size());
+      System.out.println("Grand total calibration value: " + grandTotal);
+    } catch (IOException e) {
+      e.printStackTrace();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Every regular file in a directory, or every file matching a glob such as ./devices/*/calibration_*.txt
+  public static List<Path> findFiles(String directoryOrGlob) throws IOException {
+    Path path = Paths.get(directoryOrGlob);
+    if (Files.isDirectory(path)) {
+      try (Stream<Path> files = Files.list(path)) {
+        return files.filter(Files::isRegularFile).sorted().toList();
+      }
+    }
+
+    // Walk from the deepest directory that has no glob characters in it
+    Path root = path.isAbsolute() ? path.getRoot() : Paths.get("");
+    for (Path part : path) {
+      if (part.toString().matches(".*[*?\\[{].*")) {
+        break;
+      }
+      root = root.resolve(part);
+    }
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + path.normalize());
+    Path start = root.toString().isEmpty() ? Paths.get(".") : root;
+    try (Stream<Path> files = Files.walk(start)) {
+      return files.filter(Files::isRegularFile)
+          .filter(file -> matcher.matches(file.normalize()))
+          .sorted()
+          .toList();
+    }
+  }
+
+  // Sum each file on its own virtual thread, with at most maxOpenFiles being read at once
+  public static List<FileTotal> sumAll(List<Path> files, CalibrationEngine engine, int maxOpenFiles)
+      throws IOException, InterruptedException {
+    Semaphore openFiles = new Semaphore(maxOpenFiles);
+    List<Future<FileTotal>> futures = new ArrayList<>(files.size());
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (Path file : files) {
+        futures.add(executor.submit(() -> {
+          byte[] bytes;
+          openFiles.acquire();
+          try {
+            bytes = Files.readAllBytes(file);
+          } finally {
+            openFiles.release();
+          }
+          return new FileTotal(file, MappedCalibrationScanner.sumLines(engine, bytes, 0, bytes.length));
+        }));
+      }
+
+      List<FileTotal> totals = new ArrayList<>(futures.size());
+      for (Future<FileTotal> future : futures) {
+        try {
+          totals.add(future.get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException io) {
+            throw io;
+          }
+          throw new IllegalStateException(e.getCause());
+        }
+      }
+      return totals;
+    }
+  }
+}
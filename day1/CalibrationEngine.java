@@ -0,0 +1,38 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 1 - SnowCalibration
+// Selectable engines that find the first and last numbers
+// in a line of calibration bytes
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+
+public interface CalibrationEngine {
+  // Find the first number in the bytes [from, to), or NumberFinder.NOT_FOUND
+  int findFirstNumber(byte[] bytes, int from, int to);
+
+  // Find the last number in the bytes [from, to), or NumberFinder.NOT_FOUND
+  int findLastNumber(byte[] bytes, int from, int to);
+
+  // Plain character-by-character automaton scan
+  CalibrationEngine SCALAR = new CalibrationEngine() {
+    @Override
+    public int findFirstNumber(byte[] bytes, int from, int to) {
+      return NumberFinder.findFirstNumber(bytes, from, to);
+    }
+
+    @Override
+    public int findLastNumber(byte[] bytes, int from, int to) {
+      return NumberFinder.findLastNumber(bytes, from, to);
+    }
+  };
+
+  // The Vector API engine (built separately from day1/vector) when it and the
+  // jdk.incubator.vector module are present, otherwise SCALAR
+  static CalibrationEngine vectorOrScalar() {
+    try {
+      return (CalibrationEngine) Class.forName("VectorCalibrationEngine").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return SCALAR;
+    }
+  }
+}
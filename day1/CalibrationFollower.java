@@ -0,0 +1,140 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 1 - SnowCalibration
+// Follows an append-only calibration file, remembering the
+// byte offset and running sum so that only newly appended
+// complete lines are scanned; a file recreated in place is
+// followed from its start
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+public class CalibrationFollower implements AutoCloseable {
+  // Upper bound on how long a missed watch event can delay a batch
+  private static final long POLL_MILLIS = 250;
+
+  private final Path file;
+  private final CalibrationEngine engine;
+  private FileChannel channel;
+  private byte[] buffer = new byte[64 * 1024];
+  private long offset; // Start of the first line not yet added to the sum
+  private long sum;
+  private long pending; // Value of the unfinished last line, if the file ends without a newline
+
+  public CalibrationFollower(Path file, CalibrationEngine engine) throws IOException {
+    this.file = file;
+    this.engine = engine;
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+  }
+
+  // Sum of the complete lines
+  public long sum() {
+    return sum;
+  }
+
+  // Sum of every line, counting an unfinished last line as it stands, which matches
+  // what the other modes print for the file as it is now
+  public long total() {
+    return sum + pending;
+  }
+
+  public long offset() {
+    return offset;
+  }
+
+  // Add every complete line appended since the last call and return the number of bytes consumed.
+  // A trailing partial line is left for the next call and only counted in total(); a truncated
+  // file is rescanned from the start
+  public long catchUp() throws IOException {
+    long size = channel.size();
+    if (size < offset) {
+      offset = 0;
+      sum = 0;
+    }
+
+    long consumed = 0;
+    pending = 0;
+    while (offset < size) {
+      int length = (int) Math.min(buffer.length, size - offset);
+      ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+      while (target.hasRemaining() && channel.read(target, offset + target.position()) > 0) {
+        // Keep reading until the window is full
+      }
+      int read = target.position();
+
+      int lastNewline = read - 1;
+      while (lastNewline >= 0 && buffer[lastNewline] != '\n') {
+        lastNewline--;
+      }
+      if (lastNewline < 0) {
+        if (read < buffer.length) {
+          pending = MappedCalibrationScanner.sumLines(engine, buffer, 0, read); // Only a partial line so far
+          break;
+        }
+        buffer = new byte[buffer.length * 2]; // A single line longer than the window
+        continue;
+      }
+
+      sum += MappedCalibrationScanner.sumLines(engine, buffer, 0, lastNewline + 1);
+      offset += lastNewline + 1;
+      consumed += lastNewline + 1;
+    }
+    return consumed;
+  }
+
+  // Catch up, then watch the file and report the updated total after every appended batch
+  public void follow() throws IOException, InterruptedException {
+    catchUp();
+    System.out.println("Total calibration value: " + total());
+
+    Path directory = file.toAbsolutePath().getParent();
+    Path name = file.getFileName();
+    try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      directory.register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+      while (true) {
+        // Wake on a change or after the poll interval, whichever comes first
+        WatchKey key = watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (key != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && name.equals(event.context())) {
+              reopen();
+            }
+          }
+          key.reset();
+        }
+
+        long start = System.nanoTime();
+        long before = total();
+        long consumed = catchUp();
+        if (consumed > 0 || total() != before) {
+          System.out.printf("Total calibration value: %d (+%d bytes in %.3f ms)%n",
+              total(), consumed, (System.nanoTime() - start) / 1e6);
+        }
+      }
+    }
+  }
+
+  // The file was deleted and created again: the open channel still reads the old one,
+  // so switch to the new file and count it from its start
+  private void reopen() throws IOException {
+    channel.close();
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    offset = 0;
+    sum = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
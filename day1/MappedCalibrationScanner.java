@@ -0,0 +1,151 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 1 - SnowCalibration
+// Memory-maps the calibration file and sums the calibration
+// values of newline-aligned chunks on a fork-join pool
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class MappedCalibrationScanner {
+  // Target chunk size; each chunk is mapped and scanned by one worker
+  private static final long DEFAULT_CHUNK_SIZE = 16L * 1024 * 1024;
+
+  private final long chunkSize;
+  private final CalibrationEngine engine;
+
+  public MappedCalibrationScanner() {
+    this(DEFAULT_CHUNK_SIZE, CalibrationEngine.SCALAR);
+  }
+
+  public MappedCalibrationScanner(CalibrationEngine engine) {
+    this(DEFAULT_CHUNK_SIZE, engine);
+  }
+
+  public MappedCalibrationScanner(long chunkSize, CalibrationEngine engine) {
+    if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Chunk size must fit in a single mapping: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+    this.engine = engine;
+  }
+
+  // Sum the calibration values of every line in the file
+  public long sum(Path file) throws IOException {
+    return sum(file, ForkJoinPool.commonPool());
+  }
+
+  public long sum(Path file, ForkJoinPool pool) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] bounds = chunkBounds(channel);
+      List<ChunkTask> tasks = new ArrayList<>();
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        tasks.add(new ChunkTask(channel, bounds[i], bounds[i + 1], engine));
+      }
+
+      // Fork every chunk and combine the partial sums once they are all done
+      return pool.submit(() -> {
+        long total = 0;
+        for (ChunkTask task : RecursiveTask.invokeAll(tasks)) {
+          total += task.join();
+        }
+        return total;
+      }).join();
+    }
+  }
+
+  // Split the file roughly every chunkSize bytes, moving each split just past the next newline
+  private long[] chunkBounds(FileChannel channel) throws IOException {
+    long size = channel.size();
+    List<Long> bounds = new ArrayList<>();
+    bounds.add(0L);
+    ByteBuffer probe = ByteBuffer.allocate(4096);
+    long position = chunkSize;
+    while (position < size) {
+      long split = nextLineStart(channel, position, size, probe);
+      if (split >= size) {
+        break;
+      }
+      bounds.add(split);
+      position = split + chunkSize;
+    }
+    bounds.add(size);
+    return bounds.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+    while (position < size) {
+      probe.clear();
+      int read = channel.read(probe, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (probe.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  // Maps one newline-aligned chunk and sums its lines directly over the bytes
+  private static class ChunkTask extends RecursiveTask<Long> {
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private final CalibrationEngine engine;
+
+    ChunkTask(FileChannel channel, long start, long end, CalibrationEngine engine) {
+      this.channel = channel;
+      this.start = start;
+      this.end = end;
+      this.engine = engine;
+    }
+
+    @Override
+    protected Long compute() {
+      MappedByteBuffer buffer;
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      // One bulk copy of the chunk lets every engine work over a plain array
+      byte[] bytes = new byte[buffer.limit()];
+      buffer.get(0, bytes);
+      return sumLines(engine, bytes, 0, bytes.length);
+    }
+  }
+
+  // Sum the calibration values of the lines held in [from, to) of an array
+  static long sumLines(CalibrationEngine engine, byte[] bytes, int from, int to) {
+    long sum = 0;
+    int lineStart = from;
+    while (lineStart < to) {
+      int lineEnd = lineStart;
+      while (lineEnd < to && bytes[lineEnd] != '\n') {
+        lineEnd++;
+      }
+
+      int firstDigit = engine.findFirstNumber(bytes, lineStart, lineEnd);
+      if (firstDigit != NumberFinder.NOT_FOUND) {
+        int lastDigit = engine.findLastNumber(bytes, lineStart, lineEnd);
+        sum += firstDigit * 10 + lastDigit;
+      }
+      lineStart = lineEnd + 1;
+    }
+    return sum;
+  }
+}
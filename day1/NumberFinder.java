@@ -5,80 +5,371 @@
 // (spellled or numerics)
 // Leon Rees - 2 December 2023
 // ------------------------------------------------------------
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class NumberFinder {
-  private static final Map<String, Integer> numberWords = new HashMap<>();
-  
-  // Static block to initialize the mapping of spelled-out numbers to their numeric counterparts
-  static {
-    numberWords.put("zero", 0);
-    numberWords.put("one", 1);
-    numberWords.put("two", 2);
-    numberWords.put("three", 3);
-    numberWords.put("four", 4);
-    numberWords.put("five", 5);
-    numberWords.put("six", 6);
-    numberWords.put("seven", 7);
-    numberWords.put("eight", 8);
-    numberWords.put("nine", 9);
-  }
+  // Value returned when a line holds no number at all
+  public static final int NOT_FOUND = -1;
+
+  private static final String[] NUMBER_WORDS = {
+    "zero", "one", "two", "three", "four", "five", "six", "seven", "eight", "nine"
+  };
+
+  private static final int[] NUMBER_VALUES = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+  private static final char REPLACEMENT = '\uFFFD';
+  private static final int[] MIN_VALUE = {0, 0, 0x80, 0x800}; // Smallest char each sequence length may encode
+
+  // The dictionary in use, English unless another one is loaded at startup
+  private static volatile Dictionary dictionary = new Dictionary(NUMBER_WORDS, NUMBER_VALUES);
 
   // Method to find the first number in a string
-  public static Integer findFirstNumber(String line) {
-    StringBuilder currentWord = new StringBuilder(); // StringBuilder to accumulate letters
-  
+  public static int findFirstNumber(String line) {
+    WordAutomaton forward = dictionary.forwardChars;
+    int state = 0;
+
     // Iterate through each character in the line
     for (int i = 0; i < line.length(); i++) {
       char c = line.charAt(i);
-  
-      // If the character is a letter, append it to currentWord
-      if (Character.isLetter(c)) {
-        currentWord.append(c);
-        String word = currentWord.toString().toLowerCase();
-  
-        // Check if the word matches or starts with any spelled-out number
-        for (Map.Entry<String, Integer> entry : numberWords.entrySet()) {
-          if (word.endsWith(entry.getKey())) {
-            return entry.getValue(); // Return the corresponding number if match found
-          }
-        }
-      } 
-      // If the character is a digit and no spelled-out number is currently being built, return the digit
-      else if (Character.isDigit(c)) {
-          return Character.getNumericValue(c);
+
+      // A digit ends the search straight away
+      if (c >= '0' && c <= '9') {
+        return c - '0';
+      }
+      // Letters drive the automaton, anything else leaves it where it is
+      state = forward.step(state, c);
+      if (forward.value(state) != NOT_FOUND) {
+        return forward.value(state); // Return the corresponding number if match found
+      }
+      if (state < 0) {
+        return Character.getNumericValue(c); // Non-ASCII digit
       }
     }
-    return null; // Return null if no number is found
+    return NOT_FOUND; // Return NOT_FOUND if no number is found
   }
-  
+
   // Method to find the last number in a string
-  public static Integer findLastNumber(String line) {
-    StringBuilder currentWord = new StringBuilder(); // StringBuilder to accumulate letters in reverse
-  
+  public static int findLastNumber(String line) {
+    WordAutomaton reverse = dictionary.reverseChars;
+    int state = 0;
+
     // Iterate through the line in reverse
     for (int i = line.length() - 1; i >= 0; i--) {
       char c = line.charAt(i);
-  
-      // If the character is a letter, insert it at the beginning of currentWord
-      if (Character.isLetter(c)) {
-        currentWord.insert(0, c);
-        String reversedWord = currentWord.toString().toLowerCase();
-  
-        // Check if the reversedWord starts with any spelled-out number
-        for (Map.Entry<String, Integer> entry : numberWords.entrySet()) {
-          if (reversedWord.startsWith(entry.getKey())) {
-            return entry.getValue(); // Return the corresponding number if match found
+
+      if (c >= '0' && c <= '9') {
+        return c - '0';
+      }
+      state = reverse.step(state, c);
+      if (reverse.value(state) != NOT_FOUND) {
+        return reverse.value(state);
+      }
+      if (state < 0) {
+        return Character.getNumericValue(c);
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  // Find the first number in the bytes [from, to) of an array, e.g. one line of a mapped chunk.
+  // The bytes are decoded as UTF-8 one char at a time, so they match exactly as the String does
+  public static int findFirstNumber(byte[] bytes, int from, int to) {
+    WordAutomaton forward = dictionary.forwardChars;
+    int state = 0;
+    for (int i = from; i < to; i++) {
+      byte b = bytes[i];
+      if (b >= '0' && b <= '9') {
+        return b - '0';
+      }
+      char c = (char) b;
+      if (b < 0) {
+        int decoded = decodeForward(bytes, i, to);
+        c = (char) decoded;
+        i += (decoded >>> 16) - 1;
+      }
+      state = forward.step(state, c);
+      if (forward.value(state) != NOT_FOUND) {
+        return forward.value(state);
+      }
+      if (state < 0) {
+        return Character.getNumericValue(c);
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  // Find the last number in the bytes [from, to) of an array
+  public static int findLastNumber(byte[] bytes, int from, int to) {
+    WordAutomaton reverse = dictionary.reverseChars;
+    int state = 0;
+    for (int i = to - 1; i >= from; i--) {
+      byte b = bytes[i];
+      if (b >= '0' && b <= '9') {
+        return b - '0';
+      }
+      char c = (char) b;
+      if (b < 0) {
+        int decoded = decodeBackward(bytes, from, i);
+        c = (char) decoded;
+        i -= (decoded >>> 16) - 1;
+      }
+      state = reverse.step(state, c);
+      if (reverse.value(state) != NOT_FOUND) {
+        return reverse.value(state);
+      }
+      if (state < 0) {
+        return Character.getNumericValue(c);
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  // The char of the UTF-8 sequence starting at bytes[i], as (sequence length << 16) | char.
+  // Malformed sequences and ones outside the BMP read as U+FFFD, which like the surrogate
+  // pairs a String holds for the latter is neither a letter nor a digit
+  static int decodeForward(byte[] bytes, int i, int to) {
+    int lead = bytes[i] & 0xFF;
+    int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+    int end = Math.min(i + length, to);
+    int c = length == 1 ? REPLACEMENT : lead & (0x3F >> (length - 1));
+    for (int j = i + 1; j < end; j++) {
+      if ((bytes[j] & 0xC0) != 0x80) {
+        return (j - i) << 16 | REPLACEMENT; // Cut short by a byte that starts a new char
+      }
+      c = c << 6 | (bytes[j] & 0x3F);
+    }
+    if (end - i != length || length == 4 || c < MIN_VALUE[length]) {
+      return (end - i) << 16 | REPLACEMENT;
+    }
+    return length << 16 | c;
+  }
+
+  // The char of the UTF-8 sequence ending at bytes[i], packed the same way
+  static int decodeBackward(byte[] bytes, int from, int i) {
+    int start = i;
+    while (start > from && start > i - 3 && (bytes[start] & 0xC0) == 0x80) {
+      start--;
+    }
+    int decoded = decodeForward(bytes, start, i + 1);
+    if (start + (decoded >>> 16) != i + 1) {
+      return 1 << 16 | REPLACEMENT; // A stray continuation byte
+    }
+    return decoded;
+  }
+
+  // Replace the number words with the ones in a UTF-8 file holding one "word value"
+  // pair per line; blank lines and lines starting with # are ignored. Every engine matches
+  // the words in any mix of upper and lower case, folding one char at a time with
+  // Character.toLowerCase, for non-ASCII letters as much as for ASCII ones
+  public static void loadDictionary(Path file) throws IOException {
+    List<String> words = new ArrayList<>();
+    List<Integer> values = new ArrayList<>();
+    int lineNumber = 0;
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] parts = line.split("\\s+");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException(file + ":" + lineNumber + ": expected \"word value\" but got \"" + line + "\"");
+      }
+      words.add(parts[0]);
+      values.add(Integer.parseInt(parts[1]));
+    }
+    dictionary = new Dictionary(words.toArray(String[]::new), values.stream().mapToInt(Integer::intValue).toArray());
+  }
+
+  // Automata of the current dictionary, shared with the other calibration engines
+  static WordAutomaton forward() {
+    return dictionary.forwardChars;
+  }
+
+  static WordAutomaton reverse() {
+    return dictionary.reverseChars;
+  }
+
+  // A dictionary compiled into forward and reverse automata. The forward automaton matches
+  // the words as they end, the reverse one matches the reversed words so a reverse scan
+  // finds them as they start
+  private static final class Dictionary {
+    final WordAutomaton forwardChars;
+    final WordAutomaton reverseChars;
+
+    Dictionary(String[] words, int[] values) {
+      forwardChars = new WordAutomaton(words, values, false);
+      reverseChars = new WordAutomaton(words, values, true);
+    }
+  }
+
+  // Aho-Corasick automaton over the lower case chars used by the dictionary, flattened into
+  // one transition table so a scan never allocates and costs the same whatever the size of
+  // the dictionary
+  static final class WordAutomaton {
+    private static final int DIGIT = -1; // Pseudo state reported for non-ASCII digits
+    private static final int KEEP = -2;  // Symbol class that leaves the automaton where it is
+    private static final int RESET = -3; // Symbol class that sends it back to its root
+
+    private final int[] lowSymbols;  // Symbol per ASCII char
+    private final char[] highChars;  // Sorted non-ASCII chars of the dictionary
+    private final int[] highSymbols; // Symbol of each of highChars
+    private final int alphabet;
+    private final int[] next;   // next[state * alphabet + symbol]
+    private final int[] values; // Number matched on entering a state, or NOT_FOUND
+
+    WordAutomaton(String[] words, int[] numbers, boolean reversed) {
+      // Spell every word as a sequence of lower case chars
+      int[][] spellings = new int[words.length][];
+      for (int w = 0; w < words.length; w++) {
+        String word = words[w].toLowerCase(Locale.ROOT);
+        if (word.isEmpty() || !word.chars().allMatch(Character::isLetter)) {
+          throw new IllegalArgumentException("Number words must be plain letters: " + words[w]);
+        }
+        int[] units = word.chars().toArray();
+        if (reversed) {
+          for (int i = 0, j = units.length - 1; i < j; i++, j--) {
+            int t = units[i];
+            units[i] = units[j];
+            units[j] = t;
           }
         }
-      } 
-      // If the character is a digit, check the length of currentWord
-      else if (Character.isDigit(c)) {
-        return Character.getNumericValue(c); // Return the digit
+        spellings[w] = units;
+      }
+
+      // Give each distinct unit a symbol
+      Map<Integer, Integer> symbolOf = new HashMap<>();
+      for (int[] units : spellings) {
+        for (int unit : units) {
+          symbolOf.putIfAbsent(unit, symbolOf.size());
+        }
+      }
+      alphabet = symbolOf.size();
+
+      lowSymbols = new int[128];
+      for (int c = 0; c < lowSymbols.length; c++) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+          lowSymbols[c] = symbolOf.getOrDefault(Character.toLowerCase(c), RESET);
+        } else {
+          lowSymbols[c] = KEEP; // Punctuation and spaces don't break a word in progress
+        }
+      }
+      int[] high = symbolOf.keySet().stream().mapToInt(Integer::intValue).filter(u -> u >= 128).sorted().toArray();
+      highChars = new char[high.length];
+      highSymbols = new int[highChars.length];
+      for (int i = 0; i < highChars.length; i++) {
+        highChars[i] = (char) high[i];
+        highSymbols[i] = symbolOf.get(high[i]);
+      }
+
+      int maxStates = 1;
+      for (int[] units : spellings) {
+        maxStates += units.length;
+      }
+      int[] trie = new int[maxStates * alphabet];
+      int[] output = new int[maxStates];
+      Arrays.fill(trie, -1);
+      Arrays.fill(output, NOT_FOUND);
+
+      // Build the trie of all words
+      int states = 1;
+      for (int w = 0; w < spellings.length; w++) {
+        int state = 0;
+        for (int unit : spellings[w]) {
+          int slot = state * alphabet + symbolOf.get(unit);
+          if (trie[slot] == -1) {
+            trie[slot] = states++;
+          }
+          state = trie[slot];
+        }
+        output[state] = numbers[w];
+      }
+
+      // Breadth-first pass to turn the trie into a full DFA with failure links folded in
+      int[] fail = new int[states];
+      int[] queue = new int[states];
+      int head = 0, tail = 0;
+      for (int symbol = 0; symbol < alphabet; symbol++) {
+        int t = trie[symbol];
+        if (t == -1) {
+          trie[symbol] = 0;
+        } else {
+          fail[t] = 0;
+          queue[tail++] = t;
+        }
+      }
+      while (head < tail) {
+        int s = queue[head++];
+        for (int symbol = 0; symbol < alphabet; symbol++) {
+          int slot = s * alphabet + symbol;
+          int t = trie[slot];
+          int viaFail = trie[fail[s] * alphabet + symbol];
+          if (t == -1) {
+            trie[slot] = viaFail;
+          } else {
+            fail[t] = viaFail;
+            if (output[t] == NOT_FOUND) {
+              output[t] = output[viaFail];
+            }
+            queue[tail++] = t;
+          }
+        }
+      }
+
+      this.next = Arrays.copyOf(trie, states * alphabet);
+      this.values = Arrays.copyOf(output, states);
+    }
+
+    // Advance the automaton by one character
+    int step(int state, char c) {
+      int symbol = c < 128 ? lowSymbols[c] : highSymbol(c);
+      if (symbol >= 0) {
+        return next[state * alphabet + symbol];
+      }
+      if (symbol == KEEP) {
+        return state;
+      }
+      return symbol == RESET ? 0 : DIGIT;
+    }
+
+    // Number matched on entering the given state
+    int value(int state) {
+      return state < 0 ? NOT_FOUND : values[state];
+    }
+
+    // ASCII letters, in lower case, that move the automaton away from its root, i.e. those a
+    // word can begin with (or end with, for a reversed automaton). Non-ASCII letters aren't
+    // listed; a scan has to try every non-ASCII char
+    byte[] rootLetters() {
+      byte[] letters = new byte[lowSymbols.length];
+      int count = 0;
+      for (int c = 'a'; c <= 'z'; c++) {
+        if (lowSymbols[c] >= 0 && next[lowSymbols[c]] != 0) {
+          letters[count++] = (byte) c;
+        }
+      }
+      return Arrays.copyOf(letters, count);
+    }
+
+    private int highSymbol(char c) {
+      int i = Arrays.binarySearch(highChars, Character.toLowerCase(c));
+      if (i >= 0) {
+        return highSymbols[i];
+      }
+      if (Character.isDigit(c)) {
+        return DIGIT;
       }
+      return Character.isLetter(c) ? RESET : KEEP; // Other letters can't be part of a number word
     }
-    return null; // Return null if no number is found
   }
 
-}
\ No newline at end of file
+}
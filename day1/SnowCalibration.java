@@ -7,11 +7,52 @@
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Scanner;
 
 public class SnowCalibration {
   public static void main(String[] args) {
+    // Optional "--mapped", "--follow", "--vector" and "--dictionary=<file>" switches and an optional file path
+    boolean mapped = false;
+    boolean follow = false;
+    boolean vector = false;
     File file = new File("./day1/calibration_file.txt");
+    for (String arg : args) {
+      if (arg.equals("--mapped")) {
+        mapped = true;
+      } else if (arg.equals("--follow")) {
+        follow = true;
+      } else if (arg.equals("--vector")) {
+        vector = true;
+      } else if (arg.startsWith("--dictionary=")) {
+        File dictionary = new File(arg.substring("--dictionary=".length()));
+        try {
+          NumberFinder.loadDictionary(dictionary.toPath());
+        } catch (IOException e) {
+          System.out.println("Dictionary not readable: " + dictionary.getAbsolutePath());
+          return;
+        }
+      } else {
+        file = new File(arg);
+      }
+    }
+    // Only the mapped and follow modes scan bytes through an engine
+    if (vector && !mapped && !follow) {
+      System.out.println("--vector needs --mapped or --follow");
+      return;
+    }
+    // Engines compile their lookups from the dictionary, so pick one once it is loaded
+    CalibrationEngine engine = vector ? CalibrationEngine.vectorOrScalar() : CalibrationEngine.SCALAR;
+
+    if (follow) {
+      followFile(file, engine);
+      return;
+    }
+    if (mapped) {
+      sumMapped(file, engine);
+      return;
+    }
+
     int sum = 0;
 
     try (Scanner scanner = new Scanner(file)) {
@@ -22,7 +63,7 @@ public class SnowCalibration {
         int firstDigit = -1, lastDigit = -1;
         firstDigit  = NumberFinder.findFirstNumber(line);
         lastDigit   = NumberFinder.findLastNumber(line);
-        
+
         // Combine them to form a two-digit number and add to the sum
         if (firstDigit != -1 && lastDigit != -1) {
           sum += firstDigit * 10 + lastDigit;
@@ -36,4 +77,35 @@ public class SnowCalibration {
     System.out.println("Total calibration value: " + sum);
   }
 
-}  
\ No newline at end of file
+  // Memory-map the file and sum it in parallel chunks, printing only the total
+  private static void sumMapped(File file, CalibrationEngine engine) {
+    if (!file.isFile()) {
+      System.out.println("File not found: " + file.getAbsolutePath());
+      return;
+    }
+
+    try {
+      long sum = new MappedCalibrationScanner(engine).sum(file.toPath());
+      System.out.println("Total calibration value: " + sum);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Keep the total up to date as lines are appended to the file, until interrupted
+  private static void followFile(File file, CalibrationEngine engine) {
+    if (!file.isFile()) {
+      System.out.println("File not found: " + file.getAbsolutePath());
+      return;
+    }
+
+    try (CalibrationFollower follower = new CalibrationFollower(file.toPath(), engine)) {
+      follower.follow();
+    } catch (IOException e) {
+      e.printStackTrace();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
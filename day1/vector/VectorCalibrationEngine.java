@@ -0,0 +1,152 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 1 - SnowCalibration
+// Vector API engine: classifies a full vector of bytes at once
+// to jump to the next digit or letter that can start (or end)
+// a number word, then confirms it with the scalar automaton.
+// Kept out of day1/*.java so the default build doesn't need the
+// incubator module. Build it on top of the day 1 classes with
+//   javac --add-modules jdk.incubator.vector -cp <day1 classes>
+//         -d <day1 classes> day1/vector/VectorCalibrationEngine.java
+// and run with --add-modules jdk.incubator.vector; without the
+// class or the module CalibrationEngine.vectorOrScalar() falls
+// back to the scalar engine.
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorCalibrationEngine implements CalibrationEngine {
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+  private final NumberFinder.WordAutomaton forward = NumberFinder.forward();
+  private final NumberFinder.WordAutomaton reverse = NumberFinder.reverse();
+  private final byte[] firstLetters = forward.rootLetters(); // ASCII letters a number word can start with
+  private final byte[] lastLetters = reverse.rootLetters();  // ASCII letters a number word can end with
+
+  @Override
+  public int findFirstNumber(byte[] bytes, int from, int to) {
+    int i = from;
+    while ((i = nextCandidate(bytes, i, to, firstLetters)) >= 0) {
+      // Confirm with the automaton until it matches or falls back to its root
+      int state = 0;
+      for (; i < to; i++) {
+        byte b = bytes[i];
+        if (b >= '0' && b <= '9') {
+          return b - '0';
+        }
+        char c = (char) b;
+        if (b < 0) {
+          int decoded = NumberFinder.decodeForward(bytes, i, to);
+          c = (char) decoded;
+          i += (decoded >>> 16) - 1;
+        }
+        state = forward.step(state, c);
+        if (forward.value(state) != NumberFinder.NOT_FOUND) {
+          return forward.value(state);
+        }
+        if (state < 0) {
+          return Character.getNumericValue(c);
+        }
+        if (state == 0) {
+          break;
+        }
+      }
+      i++;
+    }
+    return NumberFinder.NOT_FOUND;
+  }
+
+  @Override
+  public int findLastNumber(byte[] bytes, int from, int to) {
+    int i = to - 1;
+    while ((i = previousCandidate(bytes, from, i + 1, lastLetters)) >= 0) {
+      int state = 0;
+      for (; i >= from; i--) {
+        byte b = bytes[i];
+        if (b >= '0' && b <= '9') {
+          return b - '0';
+        }
+        char c = (char) b;
+        if (b < 0) {
+          int decoded = NumberFinder.decodeBackward(bytes, from, i);
+          c = (char) decoded;
+          i -= (decoded >>> 16) - 1;
+        }
+        state = reverse.step(state, c);
+        if (reverse.value(state) != NumberFinder.NOT_FOUND) {
+          return reverse.value(state);
+        }
+        if (state < 0) {
+          return Character.getNumericValue(c);
+        }
+        if (state == 0) {
+          break;
+        }
+      }
+      i--;
+    }
+    return NumberFinder.NOT_FOUND;
+  }
+
+  // Index of the first candidate byte in [from, to), or -1
+  private static int nextCandidate(byte[] bytes, int from, int to, byte[] letters) {
+    int i = from;
+    for (int bound = from + SPECIES.loopBound(Math.max(to - from, 0)); i < bound; i += SPECIES.length()) {
+      VectorMask<Byte> candidates = classify(ByteVector.fromArray(SPECIES, bytes, i), letters);
+      if (candidates.anyTrue()) {
+        return i + candidates.firstTrue();
+      }
+    }
+    for (; i < to; i++) {
+      if (isCandidate(bytes[i], letters)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Index of the last candidate byte in [from, to), or -1
+  private static int previousCandidate(byte[] bytes, int from, int to, byte[] letters) {
+    int i = to;
+    for (int bound = to - SPECIES.loopBound(Math.max(to - from, 0)); i > bound; i -= SPECIES.length()) {
+      VectorMask<Byte> candidates = classify(ByteVector.fromArray(SPECIES, bytes, i - SPECIES.length()), letters);
+      if (candidates.anyTrue()) {
+        return i - SPECIES.length() + candidates.lastTrue();
+      }
+    }
+    for (i--; i >= from; i--) {
+      if (isCandidate(bytes[i], letters)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Lanes holding a digit, one of the given letters in either case, or any non-ASCII byte,
+  // which may be part of a non-ASCII letter or digit
+  private static VectorMask<Byte> classify(ByteVector v, byte[] letters) {
+    VectorMask<Byte> mask = v.compare(VectorOperators.GE, (byte) '0').and(v.compare(VectorOperators.LE, (byte) '9'));
+    mask = mask.or(v.compare(VectorOperators.LT, (byte) 0));
+    ByteVector lower = v.or((byte) 0x20);
+    for (byte letter : letters) {
+      mask = mask.or(lower.compare(VectorOperators.EQ, letter));
+    }
+    return mask;
+  }
+
+  private static boolean isCandidate(byte b, byte[] letters) {
+    if ((b >= '0' && b <= '9') || b < 0) {
+      return true;
+    }
+    byte lower = (byte) (b | 0x20);
+    for (byte letter : letters) {
+      if (lower == letter) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,105 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 2 - SnowIslandGame
+// Interns cube color names into small integer ids the first
+// time they appear, straight from the bytes of the game data
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package day2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ColorDictionary {
+
+  private byte[][] names = new byte[8][]; // Name of each color id
+  private int size;
+  private int[] table = new int[32];      // Open addressing hash table of id + 1, 0 when empty
+
+  // A dictionary that starts with the given colors, numbered in order
+  public static ColorDictionary of(String... names) {
+    ColorDictionary colors = new ColorDictionary();
+    for (String name : names) {
+      colors.intern(name);
+    }
+    return colors;
+  }
+
+  // An independent dictionary holding the same colors with the same ids
+  public ColorDictionary copy() {
+    ColorDictionary colors = new ColorDictionary();
+    for (int id = 0; id < size; id++) {
+      colors.intern(names[id], 0, names[id].length);
+    }
+    return colors;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public String name(int id) {
+    return new String(names[id], StandardCharsets.UTF_8);
+  }
+
+  // Id of a color name, or -1 if it has not been seen
+  public int id(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    int slot = find(bytes, 0, bytes.length, hash(bytes, 0, bytes.length));
+    return table[slot] - 1;
+  }
+
+  public int intern(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    return intern(bytes, 0, bytes.length);
+  }
+
+  // Id of the color named by the bytes [from, to), giving it the next id if it is new
+  public int intern(byte[] data, int from, int to) {
+    int hash = hash(data, from, to);
+    int slot = find(data, from, to, hash);
+    if (table[slot] != 0) {
+      return table[slot] - 1;
+    }
+
+    if (size == names.length) {
+      names = Arrays.copyOf(names, size * 2);
+    }
+    names[size] = Arrays.copyOfRange(data, from, to);
+    table[slot] = ++size;
+    if (size * 2 > table.length) {
+      rehash();
+    }
+    return size - 1;
+  }
+
+  // Slot holding the name, or the empty slot where it belongs
+  private int find(byte[] data, int from, int to, int hash) {
+    int mask = table.length - 1;
+    int slot = hash & mask;
+    while (table[slot] != 0 && !Arrays.equals(names[table[slot] - 1], 0, names[table[slot] - 1].length, data, from, to)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void rehash() {
+    table = new int[table.length * 2];
+    int mask = table.length - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = hash(names[id], 0, names[id].length) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = id + 1;
+    }
+  }
+
+  private static int hash(byte[] data, int from, int to) {
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash = hash * 31 + data[i];
+    }
+    return hash ^ (hash >>> 16);
+  }
+}
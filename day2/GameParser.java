@@ -0,0 +1,102 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 2 - SnowIslandGame
+// Single-pass tokenizer for "Game n: 3 blue, 4 red; ..." lines
+// with any number of colors, interned through a ColorDictionary
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package day2;
+
+import java.util.Arrays;
+
+public class GameParser {
+
+  private final ColorDictionary colors;
+  private int[] turnCubes = new int[8]; // Counts of each color in the current turn
+  private int[] minCubes = new int[8];  // Maximum count of each color over the turns so far
+
+  public GameParser(ColorDictionary colors) {
+    this.colors = colors;
+  }
+
+  public ColorDictionary colors() {
+    return colors;
+  }
+
+  // Minimum cubes of each color id needed for the last game parsed, valid for colors().size() entries
+  public int[] minCubes() {
+    return minCubes;
+  }
+
+  // Walk the bytes [from, to) of one game line once, storing the maximum count of each color
+  // seen in any turn into minCubes(), and return the game id
+  public int parse(byte[] data, int from, int to) {
+    int i = from;
+
+    // The game id is the number before the colon
+    int gameId = 0;
+    while (i < to && data[i] != ':') {
+      if (data[i] >= '0' && data[i] <= '9') {
+        gameId = gameId * 10 + (data[i] - '0');
+      }
+      i++;
+    }
+
+    if (colors.size() > minCubes.length) {
+      grow(colors.size());
+    }
+    Arrays.fill(minCubes, 0);
+    Arrays.fill(turnCubes, 0);
+    int turnColors = 0; // Colors present so far, only these need folding and clearing
+    while (i < to) {
+      byte c = data[i];
+      if (c >= '0' && c <= '9') {
+        // A count, then a space, then the color
+        int count = 0;
+        while (i < to && data[i] >= '0' && data[i] <= '9') {
+          count = count * 10 + (data[i++] - '0');
+        }
+        while (i < to && data[i] == ' ') {
+          i++;
+        }
+        int nameStart = i;
+        while (i < to && isLetter(data[i])) {
+          i++;
+        }
+        if (i > nameStart) {
+          int color = colors.intern(data, nameStart, i);
+          if (color >= turnCubes.length) {
+            grow(color + 1);
+          }
+          turnCubes[color] += count;
+          turnColors = Math.max(turnColors, color + 1);
+        }
+      } else {
+        if (c == ';') {
+          // End of a turn: keep the largest counts and start the next one
+          foldTurn(turnColors);
+        }
+        i++;
+      }
+    }
+    foldTurn(turnColors);
+    return gameId;
+  }
+
+  private void grow(int colorCount) {
+    int length = Math.max(colorCount, turnCubes.length * 2);
+    turnCubes = Arrays.copyOf(turnCubes, length);
+    minCubes = Arrays.copyOf(minCubes, length);
+  }
+
+  private void foldTurn(int turnColors) {
+    for (int color = 0; color < turnColors; color++) {
+      minCubes[color] = Math.max(minCubes[color], turnCubes[color]);
+      turnCubes[color] = 0;
+    }
+  }
+
+  private static boolean isLetter(byte b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+  }
+}
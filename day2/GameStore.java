@@ -0,0 +1,309 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 2 - SnowIslandGame
+// Column store of the per-color cube maxima of every game, with
+// a dominance index to answer "which games are possible with
+// this bag?" without scanning all the games
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package day2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class GameStore {
+
+  // Dominance table size limit, in cells: a few cells per game, but never below
+  // MIN_INDEX_CELLS (small stores) or above MAX_INDEX_CELLS. The table has one step per
+  // distinct maximum along each color, so only stores with many distinct counts of
+  // several colors reach it
+  private static final long INDEX_CELLS_PER_GAME = 8;
+  private static final long MIN_INDEX_CELLS = 1 << 12;
+  private static final long MAX_INDEX_CELLS = 1 << 24;
+
+  private final ColorDictionary colors;
+  private final int colorCount;
+  private final int size;
+  private final int[] ids;    // Game id of each game
+  private final int[] maxima; // maxima[game * colorCount + color]: most cubes of a color shown in any turn
+
+  // Games ordered by their maximum of the first color, and those maxima, to list the possible games
+  private final int[] byFirstColor;
+  private final int[] sortedFirstColor;
+
+  // Dominance index: the cell of a bag holds the count and id sum of all games whose maxima all
+  // fit in that bag, so a count or sum query is a single lookup. Each color's axis is indexed by
+  // rank among that color's distinct maxima, so one game with hundreds of cubes adds one step
+  // rather than hundreds. Null when over the size limit
+  private final int[][] levels; // Sorted distinct maxima of each color
+  private final int[] strides;
+  private final int[] dominatedCounts;
+  private final long[] dominatedIdSums;
+
+  // A store over the first size games of a game-major maxima matrix with colors.size() columns
+  public GameStore(ColorDictionary colors, int[] ids, int[] maxima, int size) {
+    this.colors = colors;
+    this.colorCount = colors.size();
+    this.size = size;
+    this.ids = Arrays.copyOf(ids, size);
+    this.maxima = Arrays.copyOf(maxima, size * colorCount);
+
+    // Sort game indexes by the first color, packing both into one long per game
+    long[] keys = new long[size];
+    for (int game = 0; game < size; game++) {
+      keys[game] = colorCount == 0 ? game : ((long) this.maxima[game * colorCount] << 32) | game;
+    }
+    Arrays.sort(keys);
+    byFirstColor = new int[size];
+    sortedFirstColor = new int[size];
+    for (int slot = 0; slot < size; slot++) {
+      byFirstColor[slot] = (int) keys[slot];
+      sortedFirstColor[slot] = (int) (keys[slot] >>> 32);
+    }
+
+    levels = new int[colorCount][];
+    strides = new int[colorCount];
+    long maxCells = Math.min(MAX_INDEX_CELLS, Math.max(MIN_INDEX_CELLS, INDEX_CELLS_PER_GAME * size));
+    long cells = 1;
+    for (int color = colorCount - 1; color >= 0; color--) {
+      levels[color] = distinctMaxima(this.maxima, colorCount, color);
+      strides[color] = (int) cells;
+      cells = Math.min(cells * levels[color].length, maxCells + 1);
+    }
+    if (colorCount > 0 && cells <= maxCells) {
+      dominatedCounts = new int[(int) cells];
+      dominatedIdSums = new long[(int) cells];
+      buildDominanceIndex();
+    } else {
+      dominatedCounts = null;
+      dominatedIdSums = null;
+    }
+  }
+
+  // Parse a game data file into a store, with red, green and blue as the first colors
+  public static GameStore load(Path file) throws IOException {
+    return load(file, ColorDictionary.of("red", "green", "blue"));
+  }
+
+  public static GameStore load(Path file, ColorDictionary colors) throws IOException {
+    byte[] data = Files.readAllBytes(file);
+    Columns columns = Columns.parse(data, 0, data.length, new GameParser(colors));
+    return new GameStore(colors, columns.ids, columns.maxima, columns.size);
+  }
+
+  public ColorDictionary colors() {
+    return colors;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int id(int game) {
+    return ids[game];
+  }
+
+  public int maximum(int game, int color) {
+    return maxima[game * colorCount + color];
+  }
+
+  // Sum over all games of the product of their per-color maxima
+  public long totalPower() {
+    long total = 0;
+    for (int game = 0; game < size; game++) {
+      long power = 1;
+      for (int color = 0; color < colorCount; color++) {
+        power *= maxima[game * colorCount + color];
+      }
+      total += power;
+    }
+    return total;
+  }
+
+  // Whether the game is possible with a bag holding bag[color] cubes of each color id.
+  // Colors beyond the end of the bag count as absent
+  public boolean isPossible(int game, int[] bag) {
+    int row = game * colorCount;
+    for (int color = 0; color < colorCount; color++) {
+      if (maxima[row + color] > cubes(bag, color)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Number of games possible with the bag
+  public int possibleCount(int[] bag) {
+    if (dominatedCounts != null) {
+      int cell = cell(bag);
+      return cell < 0 ? 0 : dominatedCounts[cell];
+    }
+    int count = 0;
+    for (int slot = 0, end = firstColorPrefix(bag); slot < end; slot++) {
+      if (isPossible(byFirstColor[slot], bag)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // Sum of the ids of the games possible with the bag
+  public long possibleIdSum(int[] bag) {
+    if (dominatedIdSums != null) {
+      int cell = cell(bag);
+      return cell < 0 ? 0 : dominatedIdSums[cell];
+    }
+    long sum = 0;
+    for (int slot = 0, end = firstColorPrefix(bag); slot < end; slot++) {
+      int game = byFirstColor[slot];
+      if (isPossible(game, bag)) {
+        sum += ids[game];
+      }
+    }
+    return sum;
+  }
+
+  // Ids of the games possible with the bag, only looking at the games with few enough cubes of the first color
+  public int[] possibleGames(int[] bag) {
+    int[] result = new int[possibleCount(bag)];
+    int found = 0;
+    for (int slot = 0, end = firstColorPrefix(bag); slot < end && found < result.length; slot++) {
+      int game = byFirstColor[slot];
+      if (isPossible(game, bag)) {
+        result[found++] = ids[game];
+      }
+    }
+    return result;
+  }
+
+  private static int cubes(int[] bag, int color) {
+    return color < bag.length ? bag[color] : 0;
+  }
+
+  // Number of games, in first color order, with no more of the first color than the bag holds
+  private int firstColorPrefix(int[] bag) {
+    if (colorCount == 0) {
+      return size;
+    }
+    int limit = cubes(bag, 0);
+    int low = 0, high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sortedFirstColor[mid] <= limit) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  // Dominance cell of a bag: for each color the largest maximum the bag still covers. -1 if
+  // the bag is short of every game's maximum of some color, so no game is possible
+  private int cell(int[] bag) {
+    int cell = 0;
+    for (int color = 0; color < colorCount; color++) {
+      int rank = Arrays.binarySearch(levels[color], cubes(bag, color));
+      if (rank < 0) {
+        rank = -rank - 2; // The level below the insertion point
+      }
+      if (rank < 0) {
+        return -1;
+      }
+      cell += rank * strides[color];
+    }
+    return cell;
+  }
+
+  // Scatter every game into its own cell, then prefix-sum along each color axis in turn
+  private void buildDominanceIndex() {
+    for (int game = 0; game < size; game++) {
+      int cell = 0;
+      for (int color = 0; color < colorCount; color++) {
+        cell += Arrays.binarySearch(levels[color], maxima[game * colorCount + color]) * strides[color];
+      }
+      dominatedCounts[cell]++;
+      dominatedIdSums[cell] += ids[game];
+    }
+    for (int color = 0; color < colorCount; color++) {
+      int stride = strides[color];
+      int extent = levels[color].length;
+      for (int cell = 0; cell < dominatedCounts.length; cell++) {
+        if ((cell / stride) % extent > 0) {
+          dominatedCounts[cell] += dominatedCounts[cell - stride];
+          dominatedIdSums[cell] += dominatedIdSums[cell - stride];
+        }
+      }
+    }
+  }
+
+  // Sorted distinct values of one column of a game-major maxima matrix
+  private static int[] distinctMaxima(int[] maxima, int colorCount, int color) {
+    int[] column = new int[maxima.length / colorCount];
+    for (int game = 0; game < column.length; game++) {
+      column[game] = maxima[game * colorCount + color];
+    }
+    Arrays.sort(column);
+    int distinct = 0;
+    for (int i = 0; i < column.length; i++) {
+      if (distinct == 0 || column[i] != column[distinct - 1]) {
+        column[distinct++] = column[i];
+      }
+    }
+    return Arrays.copyOf(column, distinct);
+  }
+
+  // Growable ids and game-major maxima matrix filled while parsing, widened if a new color turns up
+  static final class Columns {
+    int[] ids = new int[1024];
+    int[] maxima;
+    int width;
+    int size;
+    long totalPower; // Sum over the games of the product of their maxima over all known colors
+
+    Columns(int width) {
+      this.width = width;
+      this.maxima = new int[ids.length * width];
+    }
+
+    // Parse every game line in the bytes [from, to)
+    static Columns parse(byte[] data, int from, int to, GameParser parser) {
+      Columns columns = new Columns(parser.colors().size());
+      int lineStart = from;
+      while (lineStart < to) {
+        int lineEnd = lineStart;
+        while (lineEnd < to && data[lineEnd] != '\n') {
+          lineEnd++;
+        }
+        if (lineEnd > lineStart) {
+          int gameId = parser.parse(data, lineStart, lineEnd);
+          columns.add(gameId, parser.minCubes(), parser.colors().size());
+        }
+        lineStart = lineEnd + 1;
+      }
+      return columns;
+    }
+
+    void add(int gameId, int[] minCubes, int colorCount) {
+      if (colorCount > width) {
+        int[] wider = new int[ids.length * colorCount];
+        for (int row = 0; row < size; row++) {
+          System.arraycopy(maxima, row * width, wider, row * colorCount, width);
+        }
+        maxima = wider;
+        width = colorCount;
+        totalPower = 0; // None of the earlier games had the new color
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        maxima = Arrays.copyOf(maxima, ids.length * width);
+      }
+      ids[size] = gameId;
+      System.arraycopy(minCubes, 0, maxima, size * width, width);
+      totalPower += SnowIslandGame.power(minCubes, width);
+      size++;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 2 - SnowIslandGame
+// Throughput of bag-feasibility queries on a GameStore against
+// a plain scan of every game
+// usage: GameStoreBenchmark [games] [queries]
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package day2;
+
+import java.util.Random;
+
+public class GameStoreBenchmark {
+
+  public static void main(String[] args) {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    Random random = new Random(42);
+
+    // Synthetic games with up to 20 cubes of each color shown in a turn
+    ColorDictionary colors = ColorDictionary.of("red", "green", "blue");
+    int[] ids = new int[games];
+    int[] maxima = new int[games * colors.size()];
+    for (int game = 0; game < games; game++) {
+      ids[game] = game + 1;
+    }
+    for (int i = 0; i < maxima.length; i++) {
+      maxima[i] = random.nextInt(21);
+    }
+
+    long startTime = System.nanoTime();
+    GameStore store = new GameStore(colors, ids, maxima, games);
+    System.out.printf("Built store of %d games in %.1f ms%n", games, (System.nanoTime() - startTime) / 1e6);
+
+    int[][] bags = new int[queries][];
+    for (int q = 0; q < queries; q++) {
+      bags[q] = new int[] {random.nextInt(25), random.nextInt(25), random.nextInt(25)};
+    }
+
+    // Full scan over the columns, as the baseline
+    long scanChecksum = 0;
+    startTime = System.nanoTime();
+    for (int[] bag : bags) {
+      for (int game = 0; game < games; game++) {
+        if (store.isPossible(game, bag)) {
+          scanChecksum += store.id(game);
+        }
+      }
+    }
+    long scanNanos = System.nanoTime() - startTime;
+
+    // Indexed queries
+    long indexChecksum = 0;
+    startTime = System.nanoTime();
+    for (int[] bag : bags) {
+      indexChecksum += store.possibleIdSum(bag);
+    }
+    long indexNanos = System.nanoTime() - startTime;
+
+    if (scanChecksum != indexChecksum) {
+      throw new IllegalStateException("Index disagrees with scan: " + indexChecksum + " != " + scanChecksum);
+    }
+    System.out.printf("Full scan: %12.0f queries/sec%n", queries / (scanNanos / 1e9));
+    System.out.printf("Indexed:   %12.0f queries/sec%n", queries / (indexNanos / 1e9));
+  }
+}
@@ -0,0 +1,160 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 2 - SnowIslandGame
+// Parallel ingest of game data: the file is mapped in
+// line-aligned chunks that are parsed on fork-join workers,
+// then the per-chunk columns and power sums are merged
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package day2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+public class ParallelGameLoader {
+
+  // Target chunk size; each chunk is mapped and parsed by one worker
+  static final long DEFAULT_CHUNK_SIZE = 4L * 1024 * 1024;
+
+  // All the games of a file and the sum of their powers
+  public record Result(GameStore store, long totalPower) {
+  }
+
+  public static Result load(Path file) throws IOException {
+    return load(file, ColorDictionary.of("red", "green", "blue"), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+  }
+
+  // Parse the file into a store whose colors are added to the given dictionary
+  public static Result load(Path file, ColorDictionary colors, ForkJoinPool pool, long chunkSize) throws IOException {
+    if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Chunk size must fit in a single mapping: " + chunkSize);
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long[] bounds = chunkBounds(channel, chunkSize);
+      List<ChunkTask> tasks = new ArrayList<>();
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        // Every worker interns into its own copy of the dictionary
+        tasks.add(new ChunkTask(channel, bounds[i], bounds[i + 1], colors.copy()));
+      }
+      List<GameStore.Columns> chunks = pool.submit(() -> {
+        List<GameStore.Columns> parsed = new ArrayList<>();
+        for (ChunkTask task : RecursiveTask.invokeAll(tasks)) {
+          parsed.add(task.join());
+        }
+        return parsed;
+      }).join();
+
+      // Chunks are in file order, so interning their colors in order keeps first-seen ids
+      int[][] colorMaps = new int[chunks.size()][];
+      int games = 0;
+      for (int c = 0; c < chunks.size(); c++) {
+        ColorDictionary local = tasks.get(c).colors;
+        colorMaps[c] = new int[local.size()];
+        for (int id = 0; id < local.size(); id++) {
+          colorMaps[c][id] = colors.intern(local.name(id));
+        }
+        games += chunks.get(c).size;
+      }
+
+      // Copy every chunk into its slice of the merged columns, remapping color ids
+      int width = colors.size();
+      int[] ids = new int[games];
+      int[] maxima = new int[games * width];
+      int[] offsets = new int[chunks.size()];
+      for (int c = 1; c < chunks.size(); c++) {
+        offsets[c] = offsets[c - 1] + chunks.get(c - 1).size;
+      }
+      long totalPower = pool.submit(() -> IntStream.range(0, chunks.size()).parallel().mapToLong(c -> {
+        GameStore.Columns chunk = chunks.get(c);
+        int[] colorMap = colorMaps[c];
+        System.arraycopy(chunk.ids, 0, ids, offsets[c], chunk.size);
+        for (int game = 0; game < chunk.size; game++) {
+          int from = game * chunk.width;
+          int to = (offsets[c] + game) * width;
+          for (int color = 0; color < chunk.width; color++) {
+            maxima[to + colorMap[color]] = chunk.maxima[from + color];
+          }
+        }
+        // A chunk that never saw some color has only zero powers
+        return chunk.width == width ? chunk.totalPower : 0;
+      }).sum()).join();
+
+      return new Result(new GameStore(colors, ids, maxima, games), totalPower);
+    }
+  }
+
+  // Split the file roughly every chunkSize bytes, moving each split just past the next newline
+  private static long[] chunkBounds(FileChannel channel, long chunkSize) throws IOException {
+    long size = channel.size();
+    List<Long> bounds = new ArrayList<>();
+    bounds.add(0L);
+    ByteBuffer probe = ByteBuffer.allocate(4096);
+    long position = chunkSize;
+    while (position < size) {
+      long split = nextLineStart(channel, position, size, probe);
+      if (split >= size) {
+        break;
+      }
+      bounds.add(split);
+      position = split + chunkSize;
+    }
+    bounds.add(size);
+    return bounds.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+    while (position < size) {
+      probe.clear();
+      int read = channel.read(probe, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (probe.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  // Maps one line-aligned chunk and parses its games into columns
+  private static class ChunkTask extends RecursiveTask<GameStore.Columns> {
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private final ColorDictionary colors;
+
+    ChunkTask(FileChannel channel, long start, long end, ColorDictionary colors) {
+      this.channel = channel;
+      this.start = start;
+      this.end = end;
+      this.colors = colors;
+    }
+
+    @Override
+    protected GameStore.Columns compute() {
+      MappedByteBuffer buffer;
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      byte[] data = new byte[buffer.limit()];
+      buffer.get(0, data);
+      return GameStore.Columns.parse(data, 0, data.length, new GameParser(colors));
+    }
+  }
+}
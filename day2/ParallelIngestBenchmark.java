@@ -0,0 +1,87 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 2 - SnowIslandGame
+// Speedup of the parallel game ingest against the number of
+// cores, on a generated game archive
+// usage: ParallelIngestBenchmark [games]
+// Leon Rees - 2 December 2023
+// ------------------------------------------------------------
+package day2;
+
+import common.CoreCounts;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelIngestBenchmark {
+
+  private static final String[] COLORS = {"red", "green", "blue"};
+
+  public static void main(String[] args) throws IOException {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    Path file = Files.createTempFile("game_data", ".txt");
+    try {
+      writeGames(file, games, new Random(42));
+      System.out.printf("Generated %d games, %.1f MB%n", games, Files.size(file) / 1e6);
+
+      // Sequential reference
+      GameStore reference = GameStore.load(file);
+      long expected = reference.totalPower();
+
+      double baseline = 0;
+      for (int parallelism : CoreCounts.available()) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+          // Warm up once, then take the best of three runs
+          ParallelGameLoader.load(file, ColorDictionary.of(COLORS), pool, ParallelGameLoader.DEFAULT_CHUNK_SIZE);
+          long best = Long.MAX_VALUE;
+          for (int run = 0; run < 3; run++) {
+            long startTime = System.nanoTime();
+            ParallelGameLoader.Result result =
+                ParallelGameLoader.load(file, ColorDictionary.of(COLORS), pool, ParallelGameLoader.DEFAULT_CHUNK_SIZE);
+            best = Math.min(best, System.nanoTime() - startTime);
+            if (result.totalPower() != expected) {
+              throw new IllegalStateException("Parallel total " + result.totalPower() + " != " + expected);
+            }
+          }
+          double millis = best / 1e6;
+          if (parallelism == 1) {
+            baseline = millis;
+          }
+          System.out.printf("cores %3d: %8.1f ms  speedup %5.2fx%n", parallelism, millis, baseline / millis);
+        } finally {
+          pool.shutdown();
+        }
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  // Games of one to six turns, each showing some of the colors
+  private static void writeGames(Path file, int games, Random random) throws IOException {
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      for (int game = 1; game <= games; game++) {
+        writer.write("Game " + game + ":");
+        int turns = 1 + random.nextInt(6);
+        for (int turn = 0; turn < turns; turn++) {
+          writer.write(turn == 0 ? " " : "; ");
+          boolean first = true;
+          for (String color : COLORS) {
+            if (random.nextInt(4) != 0) {
+              writer.write((first ? "" : ", ") + (1 + random.nextInt(20)) + " " + color);
+              first = false;
+            }
+          }
+          if (first) {
+            writer.write("1 red");
+          }
+        }
+        writer.newLine();
+      }
+    }
+  }
+}
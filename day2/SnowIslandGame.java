@@ -6,36 +6,57 @@
 // ------------------------------------------------------------
 package day2;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class SnowIslandGame {
 
   public static void main(String[] args) {
-    // File path to the game data file
-    String filePath = "./day2/game_data.txt";
+    // File path to the game data file, optionally after a "--parallel" switch
+    boolean parallel = args.length > 0 && args[0].equals("--parallel");
+    int pathArg = parallel ? 1 : 0;
+    String filePath = args.length > pathArg ? args[pathArg] : "./day2/game_data.txt";
+
+    if (parallel) {
+      try {
+        // Parse line-aligned chunks on all cores and reduce their power sums
+        long totalPowerSum = ParallelGameLoader.load(Paths.get(filePath)).totalPower();
+        System.out.println("Total sum of the power of the minimum sets: " + totalPowerSum);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      return;
+    }
 
     try {
-      // Create a BufferedReader to read from the file
-      BufferedReader reader = new BufferedReader(new FileReader(filePath));
-      String line;
+      // Read the whole file and walk it line by line
+      byte[] data = Files.readAllBytes(Paths.get(filePath));
+      // Red, green and blue always count towards the power, any other color is added when first seen
+      GameParser parser = new GameParser(ColorDictionary.of("red", "green", "blue"));
       long totalPowerSum = 0; // Variable to store the sum of powers of all games
+      int knownColors = parser.colors().size();
 
-      // Read the file line by line
-      while ((line = reader.readLine()) != null) {
-        // Find the minimum number of cubes for the current game
-        int[] minCubes = findMinimumCubes(line);
-        // Calculate the power for the current game
-        long power = (long) minCubes[0] * minCubes[1] * minCubes[2];
-        // Add the power to the total sum
-        totalPowerSum += power;
+      int lineStart = 0;
+      while (lineStart < data.length) {
+        int lineEnd = lineStart;
+        while (lineEnd < data.length && data[lineEnd] != '\n') {
+          lineEnd++;
+        }
+        if (lineEnd > lineStart) {
+          // Find the minimum number of cubes for the current game
+          parser.parse(data, lineStart, lineEnd);
+          if (parser.colors().size() > knownColors) {
+            // None of the earlier games had the new color, so their power drops to zero
+            knownColors = parser.colors().size();
+            totalPowerSum = 0;
+          }
+          // Calculate the power for the current game and add it to the total sum
+          totalPowerSum += power(parser.minCubes(), knownColors);
+        }
+        lineStart = lineEnd + 1;
       }
 
-      // Close the BufferedReader
-      reader.close();
       // Print the total sum of powers
       System.out.println("Total sum of the power of the minimum sets: " + totalPowerSum);
     } catch (IOException e) {
@@ -44,39 +65,12 @@ public class SnowIslandGame {
     }
   }
 
-  // Method to find the minimum number of cubes required for each color in a game
-  private static int[] findMinimumCubes(String game) {
-    // Split the game data into individual turns
-    String[] turns = game.split(";");
-    // Variables to store the maximum count of each color found in any turn
-    int maxRed = 0, maxGreen = 0, maxBlue = 0;
-
-    // Iterate through each turn
-    for (String turn : turns) {
-      // Count the cubes of each color in the turn
-      int red = countCubes(turn, "red");
-      int green = countCubes(turn, "green");
-      int blue = countCubes(turn, "blue");
-
-      // Update the maximum count if the current turn has more cubes of that color
-      maxRed = Math.max(maxRed, red);
-      maxGreen = Math.max(maxGreen, green);
-      maxBlue = Math.max(maxBlue, blue);
-    }
-
-    // Return the maximum counts as the minimum required cubes for the game
-    return new int[] {maxRed, maxGreen, maxBlue};
-  }
-
-  // Helper method to count the number of cubes of a specific color in a turn
-  private static int countCubes(String turn, String color) {
-    // Use regex to find the number of cubes of the specified color in the turn string
-    Matcher matcher = Pattern.compile("(\\d+) " + color).matcher(turn);
-    int count = 0;
-    // Sum up all occurrences of that color in the turn
-    while (matcher.find()) {
-      count += Integer.parseInt(matcher.group(1));
+  // Power of a game: the product of the minimum cubes of every known color
+  static long power(int[] minCubes, int colorCount) {
+    long power = 1;
+    for (int color = 0; color < colorCount; color++) {
+      power *= minCubes[color];
     }
-    return count;
+    return power;
   }
 }
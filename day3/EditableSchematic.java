@@ -0,0 +1,279 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 3 - EngineSchematic
+// In-memory schematic that takes single-cell edits and keeps
+// the gear ratio total and part-number sum up to date by only
+// revisiting the numbers and gears next to the edited cell
+// Leon Rees - 3 December 2023
+// ------------------------------------------------------------
+package day3;
+
+import java.util.Arrays;
+
+public class EditableSchematic {
+
+  private static final int NO_NUMBER = LabelledSchematic.NO_NUMBER;
+
+  private final int width;
+  private final int height;
+  private final char[] cells;             // cells[row * width + column], short rows padded with '.'
+  private final int[] labels;             // Id of the number covering each cell, or NO_NUMBER
+  private final long[] gearContributions; // Ratio each cell currently adds to the gear total
+
+  // Numbers by id; ids of removed numbers are reused
+  private int[] numberRows = new int[256];
+  private int[] numberStarts = new int[256];
+  private int[] numberEnds = new int[256]; // Exclusive
+  private long[] numberValues = new long[256];
+  private long[] partContributions = new long[256]; // Value if the number is a part, else 0
+  private int[] freeIds = new int[16];
+  private int freeCount;
+  private int idLimit; // Ids below this have been handed out at some point
+
+  private long gearRatioSum;
+  private long partNumberSum;
+
+  // Scratch space for one edit
+  private int[] touchedGears = new int[32];
+  private int touchedGearCount;
+  private final int[] around = new int[8];
+
+  public EditableSchematic(String[] lines) {
+    int longest = 0;
+    for (String line : lines) {
+      longest = Math.max(longest, line.length());
+    }
+    width = longest;
+    height = lines.length;
+    cells = new char[width * height];
+    labels = new int[width * height];
+    gearContributions = new long[width * height];
+    Arrays.fill(cells, '.');
+    Arrays.fill(labels, NO_NUMBER);
+    for (int row = 0; row < height; row++) {
+      lines[row].getChars(0, lines[row].length(), cells, row * width);
+    }
+
+    // Label every number, then work out which are parts and what every gear adds
+    for (int row = 0; row < height; row++) {
+      int column = 0;
+      while (column < width) {
+        if (labels[row * width + column] == NO_NUMBER && isDigit(cells[row * width + column])) {
+          int id = labelRun(row, column);
+          column = numberEnds[id];
+        } else {
+          column++;
+        }
+      }
+    }
+    for (int id = 0; id < idLimit; id++) {
+      updatePart(id);
+    }
+    for (int cell = 0; cell < cells.length; cell++) {
+      updateGear(cell);
+    }
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  public char get(int row, int column) {
+    return cells[row * width + column];
+  }
+
+  // Sum of the ratios of all gears: '*' cells next to exactly two part numbers
+  public long gearRatioSum() {
+    return gearRatioSum;
+  }
+
+  // Sum of all numbers next to at least one symbol
+  public long partNumberSum() {
+    return partNumberSum;
+  }
+
+  // Change one cell and bring both totals up to date. Only the numbers within one cell of the
+  // edit can change, and only the gears next to those numbers or the edited cell, so the work
+  // depends on the length of the numbers involved and not on the size of the grid
+  public void set(int row, int column, char c) {
+    if (row < 0 || row >= height || column < 0 || column >= width) {
+      throw new IndexOutOfBoundsException("Cell " + row + "," + column + " is outside the schematic");
+    }
+    int cell = row * width + column;
+    if (cells[cell] == c) {
+      return;
+    }
+    touchedGearCount = 0;
+    touchGear(cell);
+    touchGearsAround(row, column - 1, column + 1);
+
+    // Gears next to the numbers around the edit may gain or lose them, and the numbers
+    // on the edited row through or next to the edit may be split, joined or removed
+    int found = distinctNumbersAround(row, column);
+    for (int k = 0; k < found; k++) {
+      int id = around[k];
+      touchGearsAround(numberRows[id], numberStarts[id] - 1, numberEnds[id] + 1);
+      if (numberRows[id] == row) {
+        removeNumber(id);
+      }
+    }
+
+    cells[cell] = c;
+
+    // Label the digit runs of the edited row next to the edit
+    for (int j = Math.max(column - 1, 0); j <= Math.min(column + 1, width - 1); j++) {
+      if (labels[row * width + j] == NO_NUMBER && isDigit(cells[row * width + j])) {
+        int id = labelRun(row, j);
+        touchGearsAround(row, numberStarts[id] - 1, numberEnds[id] + 1);
+      }
+    }
+
+    // Every number that can have gained or lost a neighbouring symbol is within one cell of the edit
+    found = distinctNumbersAround(row, column);
+    for (int k = 0; k < found; k++) {
+      updatePart(around[k]);
+    }
+    for (int k = 0; k < touchedGearCount; k++) {
+      updateGear(touchedGears[k]);
+    }
+  }
+
+  // Give the digit run through (row, column) a new id and label its cells; returns the id
+  private int labelRun(int row, int column) {
+    int rowStart = row * width;
+    int start = column;
+    while (start > 0 && isDigit(cells[rowStart + start - 1])) {
+      start--;
+    }
+    int end = start;
+    long value = 0;
+    while (end < width && isDigit(cells[rowStart + end])) {
+      value = value * 10 + (cells[rowStart + end] - '0');
+      end++;
+    }
+
+    int id = newId();
+    numberRows[id] = row;
+    numberStarts[id] = start;
+    numberEnds[id] = end;
+    numberValues[id] = value;
+    partContributions[id] = 0;
+    for (int j = start; j < end; j++) {
+      labels[rowStart + j] = id;
+    }
+    return id;
+  }
+
+  private void removeNumber(int id) {
+    int rowStart = numberRows[id] * width;
+    for (int j = numberStarts[id]; j < numberEnds[id]; j++) {
+      labels[rowStart + j] = NO_NUMBER;
+    }
+    partNumberSum -= partContributions[id];
+    partContributions[id] = 0;
+    if (freeCount == freeIds.length) {
+      freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+    }
+    freeIds[freeCount++] = id;
+  }
+
+  private int newId() {
+    if (freeCount > 0) {
+      return freeIds[--freeCount];
+    }
+    if (idLimit == numberRows.length) {
+      int capacity = idLimit * 2;
+      numberRows = Arrays.copyOf(numberRows, capacity);
+      numberStarts = Arrays.copyOf(numberStarts, capacity);
+      numberEnds = Arrays.copyOf(numberEnds, capacity);
+      numberValues = Arrays.copyOf(numberValues, capacity);
+      partContributions = Arrays.copyOf(partContributions, capacity);
+    }
+    return idLimit++;
+  }
+
+  // Recount whether a number is a part: any symbol in the ring of cells around it
+  private void updatePart(int id) {
+    int row = numberRows[id];
+    boolean isPart = false;
+    for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1) && !isPart; r++) {
+      for (int j = Math.max(numberStarts[id] - 1, 0); j <= Math.min(numberEnds[id], width - 1); j++) {
+        if (isSymbol(cells[r * width + j])) {
+          isPart = true;
+          break;
+        }
+      }
+    }
+    long contribution = isPart ? numberValues[id] : 0;
+    partNumberSum += contribution - partContributions[id];
+    partContributions[id] = contribution;
+  }
+
+  // Recount what a cell adds to the gear total
+  private void updateGear(int cell) {
+    long contribution = 0;
+    // A '*' cell is never labelled, so counting the numbers of its 3x3 block counts its neighbours
+    if (cells[cell] == '*' && distinctNumbersAround(cell / width, cell % width) == 2) {
+      contribution = numberValues[around[0]] * numberValues[around[1]];
+    }
+    gearRatioSum += contribution - gearContributions[cell];
+    gearContributions[cell] = contribution;
+  }
+
+  // Remember the '*' cells in rows row - 1 to row + 1 and columns from to to for updating
+  private void touchGearsAround(int row, int from, int to) {
+    for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+      for (int j = Math.max(from, 0); j <= Math.min(to, width - 1); j++) {
+        int cell = r * width + j;
+        if (cells[cell] == '*') {
+          touchGear(cell);
+        }
+      }
+    }
+  }
+
+  private void touchGear(int cell) {
+    for (int k = 0; k < touchedGearCount; k++) {
+      if (touchedGears[k] == cell) {
+        return;
+      }
+    }
+    if (touchedGearCount == touchedGears.length) {
+      touchedGears = Arrays.copyOf(touchedGears, touchedGearCount * 2);
+    }
+    touchedGears[touchedGearCount++] = cell;
+  }
+
+  // Distinct number ids in the 3x3 block centred on a cell, into around; returns how many
+  private int distinctNumbersAround(int row, int column) {
+    int found = 0;
+    for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+      for (int j = Math.max(column - 1, 0); j <= Math.min(column + 1, width - 1); j++) {
+        int id = labels[r * width + j];
+        if (id == NO_NUMBER) {
+          continue;
+        }
+        boolean seen = false;
+        for (int k = 0; k < found; k++) {
+          seen |= around[k] == id;
+        }
+        if (!seen) {
+          around[found++] = id;
+        }
+      }
+    }
+    return found;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isSymbol(char c) {
+    return c != '.' && !isDigit(c);
+  }
+}
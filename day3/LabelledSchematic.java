@@ -0,0 +1,124 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 3 - EngineSchematic
+// Schematic with every digit cell labelled by the id of the
+// part number it belongs to, so gears are found by looking up
+// the distinct ids around them
+// Leon Rees - 3 December 2023
+// ------------------------------------------------------------
+package day3;
+
+import java.util.Arrays;
+
+public class LabelledSchematic {
+
+  static final int NO_NUMBER = -1; // Label of a cell that is not part of a number
+
+  private final String[] lines;
+  private final int width;      // Length of the longest line; shorter lines are padded with NO_NUMBER
+  private final int[] labels;   // labels[row * width + column]: id of the number covering the cell
+  private final long[] values;  // Value of each number id
+  private final int numberCount;
+
+  public LabelledSchematic(String[] lines) {
+    this.lines = lines;
+    int longest = 0;
+    for (String line : lines) {
+      longest = Math.max(longest, line.length());
+    }
+    width = longest;
+    labels = new int[lines.length * width];
+    Arrays.fill(labels, NO_NUMBER);
+
+    // Pre-pass: give every run of digits an id and parse its value once
+    long[] parsed = new long[64];
+    int count = 0;
+    for (int row = 0; row < lines.length; row++) {
+      String line = lines[row];
+      int column = 0;
+      while (column < line.length()) {
+        if (!Character.isDigit(line.charAt(column))) {
+          column++;
+          continue;
+        }
+        if (count == parsed.length) {
+          parsed = Arrays.copyOf(parsed, count * 2);
+        }
+        long value = 0;
+        while (column < line.length() && Character.isDigit(line.charAt(column))) {
+          value = value * 10 + Character.digit(line.charAt(column), 10);
+          labels[row * width + column] = count;
+          column++;
+        }
+        parsed[count++] = value;
+      }
+    }
+    values = Arrays.copyOf(parsed, count);
+    numberCount = count;
+  }
+
+  public int rows() {
+    return lines.length;
+  }
+
+  String line(int row) {
+    return lines[row];
+  }
+
+  public int numberCount() {
+    return numberCount;
+  }
+
+  public long value(int id) {
+    return values[id];
+  }
+
+  // Id of the number covering a cell, or NO_NUMBER (also for cells off the grid)
+  public int label(int row, int column) {
+    if (row < 0 || row >= lines.length || column < 0 || column >= width) {
+      return NO_NUMBER;
+    }
+    return labels[row * width + column];
+  }
+
+  // Distinct number ids around a cell, written to ids (room for 6 is enough); returns how many
+  public int adjacentNumbers(int row, int column, int[] ids) {
+    int found = 0;
+    for (int i = -1; i <= 1; i++) {
+      for (int j = -1; j <= 1; j++) {
+        // Skip the cell itself
+        if (i == 0 && j == 0) continue;
+
+        int id = label(row + i, column + j);
+        if (id != NO_NUMBER && !contains(ids, found, id)) {
+          ids[found++] = id;
+        }
+      }
+    }
+    return found;
+  }
+
+  // Sum of the ratios of all gears: '*' cells next to exactly two part numbers
+  public long gearRatioSum() {
+    int[] ids = new int[8];
+    long total = 0;
+    for (int row = 0; row < lines.length; row++) {
+      String line = lines[row];
+      for (int column = 0; column < line.length(); column++) {
+        if (line.charAt(column) == '*' && adjacentNumbers(row, column, ids) == 2) {
+          total += values[ids[0]] * values[ids[1]];
+        }
+      }
+    }
+    return total;
+  }
+
+  private static boolean contains(int[] ids, int count, int id) {
+    for (int k = 0; k < count; k++) {
+      if (ids[k] == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
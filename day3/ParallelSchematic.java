@@ -0,0 +1,146 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 3 - EngineSchematic
+// Tile-parallel gear search: the schematic is cut into bands of
+// rows, each searched on a fork-join worker with one read-only
+// halo row above and below it
+// Leon Rees - 3 December 2023
+// ------------------------------------------------------------
+package day3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelSchematic {
+
+  // Rows per band once the work has been split far enough
+  static final int DEFAULT_BAND_ROWS = 256;
+
+  private final byte[] cells; // cells[row * width + column], short rows padded with '.'
+  private final int width;
+  private final int height;
+
+  public ParallelSchematic(byte[] cells, int width, int height) {
+    if ((long) width * height > cells.length) {
+      throw new IllegalArgumentException("Grid of " + width + "x" + height + " needs more than " + cells.length + " cells");
+    }
+    this.cells = cells;
+    this.width = width;
+    this.height = height;
+  }
+
+  public static ParallelSchematic of(String[] lines) {
+    int width = 0;
+    for (String line : lines) {
+      width = Math.max(width, line.length());
+    }
+    byte[] cells = new byte[lines.length * width];
+    Arrays.fill(cells, (byte) '.');
+    for (int row = 0; row < lines.length; row++) {
+      for (int column = 0; column < lines[row].length(); column++) {
+        cells[row * width + column] = (byte) lines[row].charAt(column);
+      }
+    }
+    return new ParallelSchematic(cells, width, lines.length);
+  }
+
+  public static ParallelSchematic load(Path file) throws IOException {
+    return of(Files.readAllLines(file).toArray(String[]::new));
+  }
+
+  public long gearRatioSum() {
+    return gearRatioSum(ForkJoinPool.commonPool(), DEFAULT_BAND_ROWS);
+  }
+
+  // Sum of the ratios of all gears: '*' cells next to exactly two part numbers.
+  // Every gear belongs to the one band holding its row, and numbers never leave their
+  // row, so nothing is counted twice even though the halo rows are read by two bands
+  public long gearRatioSum(ForkJoinPool pool, int bandRows) {
+    return pool.invoke(new BandTask(0, height, Math.max(bandRows, 1)));
+  }
+
+  // Splits its rows in half until they fit in one band, then sums that band's gears
+  private class BandTask extends RecursiveTask<Long> {
+    private final int startRow;
+    private final int endRow;
+    private final int bandRows;
+
+    BandTask(int startRow, int endRow, int bandRows) {
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected Long compute() {
+      if (endRow - startRow <= bandRows) {
+        return bandGearRatioSum(startRow, endRow);
+      }
+      int middleRow = (startRow + endRow) >>> 1;
+      BandTask upper = new BandTask(startRow, middleRow, bandRows);
+      upper.fork();
+      long lower = new BandTask(middleRow, endRow, bandRows).compute();
+      return upper.join() + lower;
+    }
+  }
+
+  // Gears in rows [startRow, endRow), reading rows startRow - 1 and endRow as halos
+  long bandGearRatioSum(int startRow, int endRow) {
+    long[] found = new long[6];
+    long total = 0;
+    for (int row = startRow; row < endRow; row++) {
+      int rowStart = row * width;
+      for (int column = 0; column < width; column++) {
+        if (cells[rowStart + column] != '*') {
+          continue;
+        }
+        int count = 0;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, height - 1); r++) {
+          count = collectNumbers(r, column, found, count);
+        }
+        if (count == 2) {
+          total += found[0] * found[1];
+        }
+      }
+    }
+    return total;
+  }
+
+  // Add the numbers of a row touching columns column - 1 to column + 1; returns the new count
+  private int collectNumbers(int row, int column, long[] found, int count) {
+    int rowStart = row * width;
+    int i = Math.max(column - 1, 0);
+    int to = Math.min(column + 1, width - 1);
+    while (i <= to) {
+      if (!isDigit(cells[rowStart + i])) {
+        i++;
+        continue;
+      }
+      // Back up to the start of the number, then read it to its end
+      int start = i;
+      while (start > 0 && isDigit(cells[rowStart + start - 1])) {
+        start--;
+      }
+      long value = 0;
+      int end = start;
+      while (end < width && isDigit(cells[rowStart + end])) {
+        value = value * 10 + (cells[rowStart + end] - '0');
+        end++;
+      }
+      if (count < found.length) {
+        found[count] = value;
+      }
+      count++;
+      i = end;
+    }
+    return count;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+}
@@ -0,0 +1,76 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 3 - EngineSchematic
+// Scaling of the tile-parallel gear search against the number
+// of cores, on a generated square schematic (the default 20k x
+// 20k grid takes 400 MB, so run with -Xmx1g or more)
+// usage: ParallelSchematicBenchmark [size]
+// Leon Rees - 3 December 2023
+// ------------------------------------------------------------
+package day3;
+
+import common.CoreCounts;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelSchematicBenchmark {
+
+  private static final byte[] SYMBOLS = "*#$%&+-/=@".getBytes();
+
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+    long startTime = System.nanoTime();
+    ParallelSchematic schematic = new ParallelSchematic(generate(size, new Random(42)), size, size);
+    System.out.printf("Generated %dx%d schematic in %.1f ms%n", size, size, (System.nanoTime() - startTime) / 1e6);
+
+    long expected = schematic.bandGearRatioSum(0, size);
+    double baseline = 0;
+    for (int parallelism : CoreCounts.available()) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        // Warm up once, then take the best of three runs
+        schematic.gearRatioSum(pool, ParallelSchematic.DEFAULT_BAND_ROWS);
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+          startTime = System.nanoTime();
+          long total = schematic.gearRatioSum(pool, ParallelSchematic.DEFAULT_BAND_ROWS);
+          best = Math.min(best, System.nanoTime() - startTime);
+          if (total != expected) {
+            throw new IllegalStateException("Parallel total " + total + " != " + expected);
+          }
+        }
+        double millis = best / 1e6;
+        if (parallelism == 1) {
+          baseline = millis;
+        }
+        System.out.printf("cores %3d: %8.1f ms  speedup %5.2fx%n", parallelism, millis, baseline / millis);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    System.out.println("Total sum of gear ratios: " + expected);
+  }
+
+  // Mostly dots, with runs of one to three digits and scattered symbols
+  private static byte[] generate(int size, Random random) {
+    byte[] cells = new byte[size * size];
+    int i = 0;
+    while (i < cells.length) {
+      int roll = random.nextInt(100);
+      if (roll < 12) {
+        int digits = 1 + random.nextInt(3);
+        for (int d = 0; d < digits && i < cells.length; d++) {
+          cells[i++] = (byte) ('0' + random.nextInt(10));
+        }
+        if (i < cells.length) {
+          cells[i++] = '.';
+        }
+      } else if (roll < 16) {
+        cells[i++] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+      } else {
+        cells[i++] = '.';
+      }
+    }
+    return cells;
+  }
+}
@@ -0,0 +1,164 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 3 - EngineSchematic
+// Adjacency index from every symbol to the ids of the part
+// numbers around it, built in one pass over a labelled
+// schematic; all queries are answered from the index alone
+// Leon Rees - 3 December 2023
+// ------------------------------------------------------------
+package day3;
+
+import java.util.Arrays;
+
+public class SchematicIndex {
+
+  private final LabelledSchematic schematic;
+
+  // Symbols in reading order, with the position of each
+  private final int symbolCount;
+  private final char[] symbols;
+  private final int[] symbolRows;
+  private final int[] symbolColumns;
+
+  // Number ids around symbol s are adjacentIds[adjacentStart[s] .. adjacentStart[s + 1])
+  private final int[] adjacentStart;
+  private final int[] adjacentIds;
+
+  // Whether each number id touches at least one symbol
+  private final boolean[] isPart;
+
+  public SchematicIndex(LabelledSchematic schematic) {
+    this.schematic = schematic;
+    int capacity = 256;
+    char[] symbols = new char[capacity];
+    int[] rows = new int[capacity];
+    int[] columns = new int[capacity];
+    int[] starts = new int[capacity + 1];
+    int[] ids = new int[capacity * 2];
+    int[] around = new int[8];
+    int count = 0;
+    int adjacent = 0;
+    isPart = new boolean[schematic.numberCount()];
+
+    for (int row = 0; row < schematic.rows(); row++) {
+      String line = schematic.line(row);
+      for (int column = 0; column < line.length(); column++) {
+        char c = line.charAt(column);
+        if (c == '.' || Character.isDigit(c)) {
+          continue;
+        }
+        if (count == capacity) {
+          capacity *= 2;
+          symbols = Arrays.copyOf(symbols, capacity);
+          rows = Arrays.copyOf(rows, capacity);
+          columns = Arrays.copyOf(columns, capacity);
+          starts = Arrays.copyOf(starts, capacity + 1);
+        }
+        int found = schematic.adjacentNumbers(row, column, around);
+        if (adjacent + found > ids.length) {
+          ids = Arrays.copyOf(ids, Math.max(ids.length * 2, adjacent + found));
+        }
+        for (int k = 0; k < found; k++) {
+          ids[adjacent++] = around[k];
+          isPart[around[k]] = true;
+        }
+        symbols[count] = c;
+        rows[count] = row;
+        columns[count] = column;
+        starts[++count] = adjacent;
+      }
+    }
+
+    symbolCount = count;
+    this.symbols = Arrays.copyOf(symbols, count);
+    symbolRows = Arrays.copyOf(rows, count);
+    symbolColumns = Arrays.copyOf(columns, count);
+    adjacentStart = Arrays.copyOf(starts, count + 1);
+    adjacentIds = Arrays.copyOf(ids, adjacent);
+  }
+
+  public int symbolCount() {
+    return symbolCount;
+  }
+
+  public char symbol(int s) {
+    return symbols[s];
+  }
+
+  public int symbolRow(int s) {
+    return symbolRows[s];
+  }
+
+  public int symbolColumn(int s) {
+    return symbolColumns[s];
+  }
+
+  // Number of distinct part numbers around symbol s
+  public int adjacentCount(int s) {
+    return adjacentStart[s + 1] - adjacentStart[s];
+  }
+
+  // Id of the k-th part number around symbol s
+  public int adjacentId(int s, int k) {
+    return adjacentIds[adjacentStart[s] + k];
+  }
+
+  // Sum of all part numbers: numbers next to any symbol, each counted once
+  public long partNumberSum() {
+    long total = 0;
+    for (int id = 0; id < isPart.length; id++) {
+      if (isPart[id]) {
+        total += schematic.value(id);
+      }
+    }
+    return total;
+  }
+
+  // Sum of the ratios of all '*' gears
+  public long gearRatioSum() {
+    return ratioSum('*');
+  }
+
+  // Sum over the given symbol of the product of its two numbers, where it has exactly two
+  public long ratioSum(char symbol) {
+    long total = 0;
+    for (int s = 0; s < symbolCount; s++) {
+      if (symbols[s] == symbol && adjacentCount(s) == 2) {
+        total += schematic.value(adjacentId(s, 0)) * schematic.value(adjacentId(s, 1));
+      }
+    }
+    return total;
+  }
+
+  // Distinct symbols in the schematic, in order of first appearance
+  public char[] symbolTypes() {
+    StringBuilder types = new StringBuilder();
+    for (char symbol : symbols) {
+      if (types.indexOf(String.valueOf(symbol)) < 0) {
+        types.append(symbol);
+      }
+    }
+    return types.toString().toCharArray();
+  }
+
+  // Per-symbol-type statistics
+  public record SymbolStats(char symbol, int count, int adjacentParts, long adjacentPartSum) {
+  }
+
+  public SymbolStats stats(char symbol) {
+    int count = 0;
+    int parts = 0;
+    long sum = 0;
+    for (int s = 0; s < symbolCount; s++) {
+      if (symbols[s] != symbol) {
+        continue;
+      }
+      count++;
+      for (int k = adjacentStart[s]; k < adjacentStart[s + 1]; k++) {
+        parts++;
+        sum += schematic.value(adjacentIds[k]);
+      }
+    }
+    return new SymbolStats(symbol, count, parts, sum);
+  }
+}
@@ -0,0 +1,138 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 3 - EngineSchematic
+// Streams a schematic through a window of three rows, so the
+// memory used does not grow with the height of the schematic
+// Leon Rees - 3 December 2023
+// ------------------------------------------------------------
+package day3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+public class StreamingSchematic {
+
+  // One row of the window; the byte array is reused as the window slides
+  private static final class Row {
+    byte[] cells = new byte[256];
+    int length;
+  }
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[1 << 16]; // Bytes read from the stream but not yet consumed
+  private int position;
+  private int limit;
+  private Row above = new Row(); // Rows around the one whose gears are being resolved
+  private Row middle = new Row();
+  private Row below = new Row();
+
+  // Reusable scratch space for the numbers found around one gear
+  private final long[] found = new long[6];
+
+  public StreamingSchematic(InputStream in) {
+    this.in = in;
+  }
+
+  // Sum of the ratios of all gears: '*' cells next to exactly two part numbers.
+  // A gear only touches the rows above and below it, so every gear is resolved
+  // when its row is in the middle of the window
+  public long gearRatioSum() throws IOException {
+    long total = 0;
+    above.length = 0;
+    boolean haveMiddle = readRow(middle);
+    while (haveMiddle) {
+      boolean haveBelow = readRow(below);
+      if (!haveBelow) {
+        below.length = 0;
+      }
+      total += gearRatios();
+
+      // Slide the window down one row
+      Row spare = above;
+      above = middle;
+      middle = below;
+      below = spare;
+      haveMiddle = haveBelow;
+    }
+    return total;
+  }
+
+  private long gearRatios() {
+    long total = 0;
+    for (int column = 0; column < middle.length; column++) {
+      if (middle.cells[column] != '*') {
+        continue;
+      }
+      int count = collectNumbers(above, column, 0);
+      count = collectNumbers(middle, column, count);
+      count = collectNumbers(below, column, count);
+      if (count == 2) {
+        total += found[0] * found[1];
+      }
+    }
+    return total;
+  }
+
+  // Add the numbers of a row touching columns column - 1 to column + 1; returns the new count
+  private int collectNumbers(Row row, int column, int count) {
+    int from = Math.max(column - 1, 0);
+    int to = Math.min(column + 1, row.length - 1);
+    int i = from;
+    while (i <= to) {
+      if (!isDigit(row.cells[i])) {
+        i++;
+        continue;
+      }
+      // Back up to the start of the number, then read it to its end
+      int start = i;
+      while (start > 0 && isDigit(row.cells[start - 1])) {
+        start--;
+      }
+      long value = 0;
+      int end = start;
+      while (end < row.length && isDigit(row.cells[end])) {
+        value = value * 10 + (row.cells[end] - '0');
+        end++;
+      }
+      if (count < found.length) {
+        found[count] = value;
+      }
+      count++;
+      i = end; // The same number can't be counted twice
+    }
+    return count;
+  }
+
+  // Read the next line into a row, without its line terminator; false at the end of the stream
+  private boolean readRow(Row row) throws IOException {
+    row.length = 0;
+    if (position == limit && !fill()) {
+      return false;
+    }
+    while (position < limit || fill()) {
+      byte b = buffer[position++];
+      if (b == '\n') {
+        break;
+      }
+      if (b != '\r') {
+        if (row.length == row.cells.length) {
+          row.cells = Arrays.copyOf(row.cells, row.length * 2);
+        }
+        row.cells[row.length++] = b;
+      }
+    }
+    return true;
+  }
+
+  private boolean fill() throws IOException {
+    int read = in.read(buffer);
+    position = 0;
+    limit = Math.max(read, 0);
+    return read > 0;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+}
@@ -18,9 +18,50 @@ public class ScratchCardEvaluatorRecursive {
         int[] winningNumbers;
         int[] yourNumbers;
 
+        // Both sets as bits 0-127 of two longs, when every number fits and yours has no repeats
+        boolean packed;
+        long winningLow, winningHigh;
+        long yourLow, yourHigh;
+
         ScratchCard(int[] winningNumbers, int[] yourNumbers) {
             this.winningNumbers = winningNumbers;
             this.yourNumbers = yourNumbers;
+            pack();
+        }
+
+        private void pack() {
+            for (int number : winningNumbers) {
+                if (number < 0 || number >= 128) {
+                    sortForFallback();
+                    return;
+                }
+                if (number < 64) {
+                    winningLow |= 1L << number;
+                } else {
+                    winningHigh |= 1L << number;
+                }
+            }
+            for (int number : yourNumbers) {
+                long bit = 1L << number; // Shifts only use the low 6 bits
+                if (number < 0 || number >= 128 || ((number < 64 ? yourLow : yourHigh) & bit) != 0) {
+                    sortForFallback();
+                    return;
+                }
+                if (number < 64) {
+                    yourLow |= bit;
+                } else {
+                    yourHigh |= bit;
+                }
+            }
+            packed = true;
+        }
+
+        // Sorted copies for the merge in countMatches; the parsed order is not used elsewhere
+        private void sortForFallback() {
+            winningNumbers = winningNumbers.clone();
+            yourNumbers = yourNumbers.clone();
+            Arrays.sort(winningNumbers);
+            Arrays.sort(yourNumbers);
         }
     }
 
@@ -29,7 +70,10 @@ public class ScratchCardEvaluatorRecursive {
     public static void main(String[] args) {
         try {
             cards = readCardsFromFile("./day4/scratch_cards_data.txt");
-            int totalCards = processAllScratchCards();
+            // The recursive version is kept for comparison; it visits every copy one by one
+            long totalCards = args.length > 0 && args[0].equals("--recursive")
+                    ? processAllScratchCards()
+                    : countAllScratchCards(cards);
             System.out.println("Total scratchcards: " + totalCards);
         } catch (IOException e) {
             e.printStackTrace();
@@ -42,15 +86,20 @@ public class ScratchCardEvaluatorRecursive {
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(":")[1].trim().split("\\|");
-                int[] winningNumbers = parseNumbers(parts[0]);
-                int[] yourNumbers = parseNumbers(parts[1]);
-                cards.add(new ScratchCard(winningNumbers, yourNumbers));
+                cards.add(parseCard(line));
             }
         }
         return cards;
     }
 
+    // Parse one "Card n: winning | yours" line
+    static ScratchCard parseCard(String line) {
+        String[] parts = line.split(":")[1].trim().split("\\|");
+        int[] winningNumbers = parseNumbers(parts[0]);
+        int[] yourNumbers = parseNumbers(parts[1]);
+        return new ScratchCard(winningNumbers, yourNumbers);
+    }
+
     // Parse numbers from a string
     private static int[] parseNumbers(String numbers) {
         return Arrays.stream(numbers.trim().split(" "))
@@ -68,6 +117,24 @@ public class ScratchCardEvaluatorRecursive {
         return totalCards;
     }
 
+    // Count all scratch cards including copies in one forward pass. copies[i] is how many
+    // of card i we end up with; every one of them wins a copy of each of the next
+    // 'matches' cards, so its count is final before the pass reaches it
+    static long countAllScratchCards(List<ScratchCard> cards) {
+        long[] copies = new long[cards.size()];
+        Arrays.fill(copies, 1);
+        long totalCards = 0;
+        for (int i = 0; i < copies.length; i++) {
+            int matches = countMatches(cards.get(i));
+            int last = Math.min(i + matches, copies.length - 1);
+            for (int j = i + 1; j <= last; j++) {
+                copies[j] += copies[i];
+            }
+            totalCards += copies[i];
+        }
+        return totalCards;
+    }
+
     // Recursive method to process a scratch card and its copies
     private static int processCardAndCopies(int cardIndex, int copies) {
         if (cardIndex >= cards.size()) {
@@ -90,15 +157,21 @@ public class ScratchCardEvaluatorRecursive {
     }
 
     // Count the number of matches in a card
-    private static int countMatches(ScratchCard card) {
-        Set<Integer> winningNumbersSet = new HashSet<>();
-        for (int number : card.winningNumbers) {
-            winningNumbersSet.add(number);
+    static int countMatches(ScratchCard card) {
+        if (card.packed) {
+            return Long.bitCount(card.winningLow & card.yourLow)
+                 + Long.bitCount(card.winningHigh & card.yourHigh);
         }
 
+        // Merge the sorted numbers; each of yours that is a winning number is a match
+        int[] winning = card.winningNumbers;
         int matches = 0;
+        int w = 0;
         for (int number : card.yourNumbers) {
-            if (winningNumbersSet.contains(number)) {
+            while (w < winning.length && winning[w] < number) {
+                w++;
+            }
+            if (w < winning.length && winning[w] == number) {
                 matches++;
             }
         }
@@ -0,0 +1,93 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 4 - ScratchCardEvaluator
+// Count the scratch cards including copies as the cards are
+// read, keeping only the copies won for the next few cards
+// Input data : ./day4/scratch_cards_data.txt, or - for stdin
+// Leon Rees - 4 December 2023
+// ------------------------------------------------------------
+package day4;
+
+import java.io.*;
+import java.util.*;
+
+public class StreamingScratchCards {
+
+    // Copies won so far of the cards still to come: pending[(head + k) % pending.length]
+    // is for the card k places after the next one. A card only wins copies of the next
+    // 'matches' cards, so the ring never needs more slots than the largest match count
+    private long[] pending;
+    private int head;
+    private long cardsRead;
+    private long totalCards;
+
+    public StreamingScratchCards() {
+        this(16);
+    }
+
+    public StreamingScratchCards(int maxMatches) {
+        pending = new long[Math.max(maxMatches, 1)];
+    }
+
+    public static void main(String[] args) {
+        String fileName = args.length > 0 ? args[0] : "./day4/scratch_cards_data.txt";
+        try (BufferedReader reader = fileName.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : new BufferedReader(new FileReader(fileName))) {
+            StreamingScratchCards evaluator = new StreamingScratchCards();
+            evaluator.consume(reader);
+            System.out.println("Total scratchcards: " + evaluator.totalCards());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Read cards until the end of the input, counting each as it arrives
+    public void consume(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                accept(ScratchCardEvaluatorRecursive.countMatches(ScratchCardEvaluatorRecursive.parseCard(line)));
+            }
+        }
+    }
+
+    // Count the next card from its number of matches; returns how many of it we end up with
+    public long accept(int matches) {
+        long copies = 1 + pending[head];
+        pending[head] = 0;
+        head = (head + 1) % pending.length;
+        if (matches > pending.length) {
+            grow(matches);
+        }
+
+        // Every copy of this card wins one copy of each of the next 'matches' cards
+        for (int k = 0; k < matches; k++) {
+            pending[(head + k) % pending.length] += copies;
+        }
+        cardsRead++;
+        totalCards += copies;
+        return copies;
+    }
+
+    // Number of cards read so far
+    public long cardsRead() {
+        return cardsRead;
+    }
+
+    // Running total of cards including copies; copies won of cards past the last one read
+    // are only counted once those cards arrive
+    public long totalCards() {
+        return totalCards;
+    }
+
+    // Widen the ring, keeping the pending counts in order from the next card
+    private void grow(int slots) {
+        long[] wider = new long[Math.max(slots, pending.length * 2)];
+        for (int k = 0; k < pending.length; k++) {
+            wider[k] = pending[(head + k) % pending.length];
+        }
+        pending = wider;
+        head = 0;
+    }
+}
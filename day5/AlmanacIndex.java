@@ -0,0 +1,105 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 5 - AlmanacMapper
+// The composed seed-to-location map saved as a binary file and
+// memory-mapped back, so lookups start without reparsing the
+// almanac text
+// Usage : AlmanacIndex <index file> <seed>...
+// Leon Rees - 10 December 2023
+// ------------------------------------------------------------
+package day5;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class AlmanacIndex {
+    // File layout, all big-endian longs: MAGIC, piece count, piece starts, piece offsets
+    private static final long MAGIC = 0x414c4d414e414331L; // "ALMANAC1"
+    private static final int HEADER_LONGS = 2;
+
+    private final LongBuffer table;
+    private final int pieceCount;
+
+    private AlmanacIndex(LongBuffer table, int pieceCount) {
+        this.table = table;
+        this.pieceCount = pieceCount;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: AlmanacIndex <index file> <seed>...");
+            return;
+        }
+        AlmanacIndex index = load(Path.of(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            long seed = Long.parseLong(args[i]);
+            System.out.println(seed + " -> " + index.map(seed));
+        }
+    }
+
+    public static void save(PiecewiseMap map, Path file) throws IOException {
+        int count = map.pieceCount();
+        ByteBuffer bytes = ByteBuffer.allocate((HEADER_LONGS + 2 * count) * Long.BYTES);
+        LongBuffer longs = bytes.asLongBuffer();
+        longs.put(MAGIC).put(count);
+        for (int i = 0; i < count; i++) {
+            longs.put(map.pieceStart(i));
+        }
+        for (int i = 0; i < count; i++) {
+            longs.put(map.offset(i));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    // Map the file; nothing is read until the first lookup touches it
+    public static AlmanacIndex load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            LongBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asLongBuffer();
+            if (table.limit() < HEADER_LONGS || table.get(0) != MAGIC) {
+                throw new IOException(file + " is not an almanac index");
+            }
+            long count = table.get(1);
+            if (count < 1 || HEADER_LONGS + 2 * count != table.limit()) {
+                throw new IOException(file + " has a bad piece count: " + count);
+            }
+            return new AlmanacIndex(table, (int) count);
+        }
+    }
+
+    public int pieceCount() {
+        return pieceCount;
+    }
+
+    // Location of a seed: binary search for its piece straight in the mapped file
+    public long map(long seed) {
+        int low = 0;
+        int high = pieceCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (table.get(HEADER_LONGS + middle) <= seed) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return seed + table.get(HEADER_LONGS + pieceCount + low);
+    }
+
+    // Copy the pieces back out, e.g. for LowestLocationSolver
+    public PiecewiseMap toPiecewiseMap() {
+        long[] starts = new long[pieceCount];
+        long[] offsets = new long[pieceCount];
+        table.get(HEADER_LONGS, starts);
+        table.get(HEADER_LONGS + pieceCount, offsets);
+        return new PiecewiseMap(starts, offsets);
+    }
+}
@@ -9,6 +9,7 @@ package day5;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class AlmanacMapper {
@@ -34,48 +35,43 @@ public class AlmanacMapper {
         br.close();
         maps.add(cur);
 
-        long lowest = Long.MAX_VALUE;
-        for (Long l : initial) {
-            long res = l;
-            for (GardenMap gm : maps) {
-                res = gm.map(res);
-            }
-            lowest = Math.min(lowest, res);
+        // Compose the maps once, so each seed is a single lookup instead of one pass per map
+        PiecewiseMap seedToLocation = PiecewiseMap.IDENTITY;
+        for (GardenMap gm : maps) {
+            seedToLocation = seedToLocation.andThen(gm.compile());
         }
-        System.out.println("p1: " + lowest);
 
-        TreeSet<Range> ranges = new TreeSet<>();
-        for (int i = 0; i < initial.size() - 1; i += 2) {
-            Long start = initial.get(i);
-            ranges.add(new Range(start, start + initial.get(i + 1) - 1));
+        // --save-index=<file> keeps the composed map for AlmanacIndex to load without the text,
+        // --forward also pushes every seed range through the map to cross-check p2
+        boolean forward = false;
+        for (String arg : args) {
+            if (arg.startsWith("--save-index=")) {
+                AlmanacIndex.save(seedToLocation, Path.of(arg.substring("--save-index=".length())));
+            } else if (arg.equals("--forward")) {
+                forward = true;
+            }
         }
-        mergeRanges(ranges);
 
-        for (GardenMap gm : maps) {
-            //System.out.println("\napply " + gm);
-            ranges = gm.map(ranges);
-            //printRanges(ranges);
+        long lowest = Long.MAX_VALUE;
+        for (Long l : initial) {
+            lowest = Math.min(lowest, seedToLocation.map(l));
         }
-        System.out.println("p2: " + ranges.getFirst().start);
-    }
-
-    private static void mergeRanges(TreeSet<Range> ranges) {
-        Range prev = null;
-        for (Iterator<Range> it = ranges.iterator(); it.hasNext(); ) {
-            Range cur = it.next();
-            if (prev == null) {
-                prev = cur;
-                continue;
-            }
+        System.out.println("p1: " + lowest);
 
-            if (prev.overlapOrAdjacent(cur)) {
-                // this is a bit risky. These operations will not change the ordering in the end, but still -
-                // it depends on the TreeSet implementation that this is ok... however, it works in Java 21.
-                prev.start = Math.min(prev.start, cur.start);
-                prev.end = Math.max(prev.end, cur.end);
-                it.remove();
-            } else {
-                prev = cur;
+        RangeBuffer ranges = new RangeBuffer(initial.size() / 2);
+        for (int i = 0; i < initial.size() - 1; i += 2) {
+            long start = initial.get(i);
+            ranges.add(start, start + initial.get(i + 1) - 1);
+        }
+        ranges.normalize();
+        long p2 = new LowestLocationSolver(seedToLocation).lowestLocation(ranges);
+        System.out.println("p2: " + p2);
+
+        if (forward) {
+            ranges.map(seedToLocation);
+            System.out.println("p2 by forward sweep: " + ranges.lowest());
+            if (ranges.lowest() != p2) {
+                throw new IllegalStateException("Forward sweep found " + ranges.lowest() + " but the solver found " + p2);
             }
         }
     }
@@ -90,30 +86,17 @@ public class AlmanacMapper {
             maps.add(new OneMap(Long.parseLong(spec[0]), Long.parseLong(spec[1]), Long.parseLong(spec[2])));
         }
 
-        public long map(long src) {
-            for (OneMap o : maps) {
-                Long cand = o.map(src);
-                if (cand != null) {
-                    return cand;
-                }
-            }
-            return src;
-        }
-
-        public TreeSet<Range> map(TreeSet<Range> ranges) {
-            TreeSet<Range> mapped = new TreeSet<>();
-            TreeSet<Range> unmapped = ranges;
-            for (OneMap o : maps) {
-                if (unmapped.isEmpty()) {
-                    break;
-                }
-                TreeSet<Range> step = new TreeSet<>();
-                o.map(unmapped, step, mapped);
-                unmapped = step;
+        public PiecewiseMap compile() {
+            long[] targetStarts = new long[maps.size()];
+            long[] sourceStarts = new long[maps.size()];
+            long[] lengths = new long[maps.size()];
+            for (int i = 0; i < maps.size(); i++) {
+                OneMap o = maps.get(i);
+                targetStarts[i] = o.targetStart;
+                sourceStarts[i] = o.sourceStart;
+                lengths[i] = o.length;
             }
-            mapped.addAll(unmapped);
-            mergeRanges(mapped);
-            return mapped;
+            return PiecewiseMap.fromEntries(targetStarts, sourceStarts, lengths);
         }
 
         @Override
@@ -128,91 +111,19 @@ public class AlmanacMapper {
     }
 
     private static class OneMap {
-        Range source;
+        long sourceStart;
+        long length;
         long targetStart;
 
         public OneMap(long targetStart, long sourceStart, long length) {
-            source = new Range(sourceStart, sourceStart + length - 1);
+            this.sourceStart = sourceStart;
+            this.length = length;
             this.targetStart = targetStart;
         }
 
-        public Long map(long src) {
-            if (source.contains(src)) {
-                return targetStart + (src - source.start);
-            }
-            return null;
-        }
-
-        public void map(TreeSet<Range> in, TreeSet<Range> unmapped, TreeSet<Range> mapped) {
-            for (Range r : in) {
-                if (source.end < r.start || source.start > r.end) {
-                    unmapped.add(r);
-                    continue;
-                }
-                // they overlap: there can be 1 to 3 ranges now, up to two unmapped to the left an right of source
-                if (r.start < source.start) {
-                    unmapped.add(new Range(r.start, source.start - 1));
-                }
-                if (r.end > source.end) {
-                    unmapped.add(new Range(source.end + 1, r.end));
-                }
-
-                // and definitely one that is mapped
-                long ms = targetStart + (Math.max(source.start, r.start) - source.start);
-                long me = targetStart + (Math.min(source.end, r.end) - source.start);
-                mapped.add(new Range(ms, me));
-            }
-        }
-
-        @Override
-        public String toString() {
-            return "[" + source.start + "-" + source.end + " -> " + targetStart + "...]";
-        }
-    }
-
-    private static class Range implements Comparable<Range> {
-        long start, end; // inclusive
-
-        public Range(long start, long end) {
-            this.start = start;
-            this.end = end;
-        }
-
-        public boolean overlapOrAdjacent(Range bigger) {
-            return bigger.contains(start) || bigger.contains(end + 1) || contains(bigger.start);
-        }
-
-        public boolean contains(long l) {
-            return l >= start && l <= end;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof Range range)) return false;
-
-            if (start != range.start) return false;
-            return end == range.end;
-        }
-
-        @Override
-        public int compareTo(Range o) {
-            long r = start - o.start;
-            if (r == 0) {
-                r = end - o.end;
-            }
-            if (r < 0) {
-                return -1;
-            }
-            if (r > 0) {
-                return 1;
-            }
-            return 0;
-        }
-
         @Override
         public String toString() {
-            return "(" + start + "-" + end + ")";
+            return "[" + sourceStart + "-" + (sourceStart + length - 1) + " -> " + targetStart + "...]";
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 5 - AlmanacMapper
+// Find the lowest location reachable from a set of seeds by
+// working back from the lowest locations, instead of pushing
+// every seed range forward
+// Leon Rees - 10 December 2023
+// ------------------------------------------------------------
+package day5;
+
+import java.util.*;
+
+public class LowestLocationSolver {
+    private final PiecewiseMap seedToLocation;
+
+    // Pieces of seedToLocation in order of the lowest location each one reaches
+    private final int[] byLocation;
+
+    public LowestLocationSolver(PiecewiseMap seedToLocation) {
+        this.seedToLocation = seedToLocation;
+        Integer[] pieces = new Integer[seedToLocation.pieceCount()];
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = i;
+        }
+        Arrays.sort(pieces, Comparator.comparingLong(this::pieceLowest));
+        byLocation = Arrays.stream(pieces).mapToInt(Integer::intValue).toArray();
+    }
+
+    // Lowest location of any seed in seeds, which must be normalized; Long.MAX_VALUE if
+    // there are none. Within a piece the location grows with the seed, so a piece's best
+    // is its lowest seed. Pieces are tried from the lowest location up, and once a piece
+    // can't beat the best found so far none of the later ones can either. Each piece tried
+    // costs one binary search over the seed ranges, however fragmented they are
+    public long lowestLocation(RangeBuffer seeds) {
+        long best = Long.MAX_VALUE;
+        for (int piece : byLocation) {
+            if (pieceLowest(piece) >= best) {
+                break;
+            }
+            int range = seeds.firstEndingAtOrAfter(seedToLocation.pieceStart(piece));
+            if (range < seeds.size() && seeds.start(range) < seedToLocation.pieceEnd(piece)) {
+                long seed = Math.max(seeds.start(range), seedToLocation.pieceStart(piece));
+                best = Math.min(best, seed + seedToLocation.offset(piece));
+            }
+        }
+        return best;
+    }
+
+    private long pieceLowest(int piece) {
+        return seedToLocation.pieceStart(piece) + seedToLocation.offset(piece);
+    }
+}
@@ -0,0 +1,139 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 5 - AlmanacMapper
+// A garden map, or a whole chain of them composed together,
+// as sorted pieces x -> x + offset, so mapping a value is one
+// binary search
+// Leon Rees - 10 December 2023
+// ------------------------------------------------------------
+package day5;
+
+import java.util.Arrays;
+
+public class PiecewiseMap {
+    // Maps every value to itself
+    public static final PiecewiseMap IDENTITY = new PiecewiseMap(new long[]{0}, new long[]{0});
+
+    // Piece i covers [starts[i], starts[i + 1]), the last one runs to Long.MAX_VALUE.
+    // starts[0] is 0 (almanac values are never negative) and neighbouring pieces
+    // always have different offsets
+    private final long[] starts;
+    private final long[] offsets;
+
+    PiecewiseMap(long[] starts, long[] offsets) {
+        if (starts.length == 0 || starts.length != offsets.length || starts[0] != 0) {
+            throw new IllegalArgumentException("Pieces must start at 0 and have one offset each");
+        }
+        this.starts = starts;
+        this.offsets = offsets;
+    }
+
+    // Build from the lines of one garden map. Where source ranges overlap, the first line
+    // listed wins, the same as GardenMap.map; values outside every range map to themselves
+    static PiecewiseMap fromEntries(long[] targetStarts, long[] sourceStarts, long[] lengths) {
+        long[] cuts = new long[lengths.length * 2 + 1];
+        for (int i = 0; i < lengths.length; i++) {
+            cuts[2 * i + 1] = sourceStarts[i];
+            cuts[2 * i + 2] = sourceStarts[i] + lengths[i];
+        }
+        Arrays.sort(cuts);
+
+        Builder builder = new Builder(cuts.length);
+        for (int c = 0; c < cuts.length; c++) {
+            if (c > 0 && cuts[c] == cuts[c - 1]) {
+                continue;
+            }
+            long offset = 0;
+            for (int i = 0; i < lengths.length; i++) {
+                if (cuts[c] >= sourceStarts[i] && cuts[c] - sourceStarts[i] < lengths[i]) {
+                    offset = targetStarts[i] - sourceStarts[i];
+                    break;
+                }
+            }
+            builder.add(cuts[c], offset);
+        }
+        return builder.build();
+    }
+
+    public int pieceCount() {
+        return starts.length;
+    }
+
+    public long pieceStart(int piece) {
+        return starts[piece];
+    }
+
+    // Exclusive end of a piece
+    public long pieceEnd(int piece) {
+        return piece + 1 < starts.length ? starts[piece + 1] : Long.MAX_VALUE;
+    }
+
+    public long offset(int piece) {
+        return offsets[piece];
+    }
+
+    // Index of the piece holding a value (which must not be negative)
+    public int pieceIndex(long value) {
+        int found = Arrays.binarySearch(starts, value);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    public long map(long value) {
+        return value + offsets[pieceIndex(value)];
+    }
+
+    // This map followed by next, as one map. Each piece of this map is cut wherever
+    // its image crosses a piece boundary of next
+    public PiecewiseMap andThen(PiecewiseMap next) {
+        Builder builder = new Builder(starts.length + next.starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            long start = starts[i];
+            long end = pieceEnd(i);
+            long offset = offsets[i];
+            int j = next.pieceIndex(start + offset);
+            builder.add(start, offset + next.offsets[j]);
+            for (j++; j < next.starts.length && next.starts[j] - offset < end; j++) {
+                builder.add(next.starts[j] - offset, offset + next.offsets[j]);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < starts.length; i++) {
+            sb.append("[").append(starts[i]).append("... +").append(offsets[i]).append("] ");
+        }
+        return sb.toString();
+    }
+
+    // Collects pieces in order, joining a piece onto the one before when the offsets match
+    private static class Builder {
+        private long[] starts;
+        private long[] offsets;
+        private int count;
+
+        Builder(int capacity) {
+            starts = new long[Math.max(capacity, 1)];
+            offsets = new long[Math.max(capacity, 1)];
+        }
+
+        void add(long start, long offset) {
+            if (count > 0 && offsets[count - 1] == offset) {
+                return;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            starts[count] = start;
+            offsets[count] = offset;
+            count++;
+        }
+
+        PiecewiseMap build() {
+            return new PiecewiseMap(Arrays.copyOf(starts, count), Arrays.copyOf(offsets, count));
+        }
+    }
+}
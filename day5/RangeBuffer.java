@@ -0,0 +1,175 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 5 - AlmanacMapper
+// Sorted, disjoint ranges of values held in parallel long
+// arrays, mapped through a PiecewiseMap by one sweep over the
+// ranges and the pieces together
+// Leon Rees - 10 December 2023
+// ------------------------------------------------------------
+package day5;
+
+import java.util.Arrays;
+
+public class RangeBuffer {
+    // Range i is [starts[i], ends[i]], ends inclusive. After normalize() and map() the ranges
+    // are sorted, and no two of them overlap or touch
+    private long[] starts;
+    private long[] ends;
+    private int count;
+
+    // Where map() writes its output; swapped with starts/ends afterwards so both pairs are reused
+    private long[] nextStarts;
+    private long[] nextEnds;
+
+    public RangeBuffer(int capacity) {
+        capacity = Math.max(capacity, 1);
+        starts = new long[capacity];
+        ends = new long[capacity];
+        nextStarts = new long[capacity];
+        nextEnds = new long[capacity];
+    }
+
+    // Add a range in any order; call normalize() once all are added
+    public void add(long start, long end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long start(int i) {
+        return starts[i];
+    }
+
+    public long end(int i) {
+        return ends[i];
+    }
+
+    // Smallest value in any range
+    public long lowest() {
+        if (count == 0) {
+            throw new IllegalStateException("No ranges");
+        }
+        return starts[0];
+    }
+
+    // Index of the first range ending at or after value, or size() if there is none.
+    // The ranges must be normalized
+    public int firstEndingAtOrAfter(long value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Sort the ranges, then join overlapping and touching ones in place
+    public void normalize() {
+        sort(starts, ends, 0, count - 1);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (kept > 0 && starts[i] - 1 <= ends[kept - 1]) {
+                ends[kept - 1] = Math.max(ends[kept - 1], ends[i]);
+            } else {
+                starts[kept] = starts[i];
+                ends[kept] = ends[i];
+                kept++;
+            }
+        }
+        count = kept;
+    }
+
+    // Replace every range by its image under map. The ranges and the pieces are both sorted,
+    // so one sweep finds where each range is cut; the images are then sorted and joined
+    public void map(PiecewiseMap map) {
+        int written = 0;
+        int piece = count > 0 ? map.pieceIndex(starts[0]) : 0;
+        for (int i = 0; i < count; i++) {
+            long start = starts[i];
+            long end = ends[i];
+            while (map.pieceEnd(piece) <= start) {
+                piece++;
+            }
+            while (true) {
+                long pieceEnd = map.pieceEnd(piece);
+                long cut = Math.min(end, pieceEnd - 1);
+                if (written == nextStarts.length) {
+                    nextStarts = Arrays.copyOf(nextStarts, written * 2);
+                    nextEnds = Arrays.copyOf(nextEnds, written * 2);
+                }
+                nextStarts[written] = start + map.offset(piece);
+                nextEnds[written] = cut + map.offset(piece);
+                written++;
+                if (end < pieceEnd || piece == map.pieceCount() - 1) {
+                    break; // The next range may start in this same piece
+                }
+                start = pieceEnd;
+                piece++;
+            }
+        }
+
+        long[] swap = starts;
+        starts = nextStarts;
+        nextStarts = swap;
+        swap = ends;
+        ends = nextEnds;
+        nextEnds = swap;
+        count = written;
+        normalize();
+    }
+
+    // Quicksort of the ranges by start, moving each end along with its start
+    private static void sort(long[] starts, long[] ends, int low, int high) {
+        while (high - low > 16) {
+            long pivot = starts[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (starts[i] < pivot) {
+                    i++;
+                }
+                while (starts[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(starts, ends, i++, j--);
+                }
+            }
+            // Recurse into the smaller side, loop on the larger one
+            if (j - low < high - i) {
+                sort(starts, ends, low, j);
+                low = i;
+            } else {
+                sort(starts, ends, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && starts[j - 1] > starts[j]; j--) {
+                swap(starts, ends, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(long[] starts, long[] ends, int i, int j) {
+        long start = starts[i];
+        starts[i] = starts[j];
+        starts[j] = start;
+        long end = ends[i];
+        ends[i] = ends[j];
+        ends[j] = end;
+    }
+}
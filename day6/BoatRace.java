@@ -8,11 +8,18 @@
 package day6;
 
 import java.io.*;
+import java.math.BigInteger;
 import java.util.*;
 
 public class BoatRace {
 
     public static void main(String[] args) {
+        // --batch [file] scores every race on its own as well as the concatenated one
+        if (args.length > 0 && args[0].equals("--batch")) {
+            RaceBatch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         // File path for the input data
         String filePath = "./day6/race_results.txt";
 
@@ -43,16 +50,92 @@ public class BoatRace {
         System.out.println("Total number of ways to beat the record in the race: " + ways);
     }
 
-    // Method to calculate the number of ways to beat the record for the single race
-    private static long calculateWaysToBeatRecord(long time, long recordDistance) {
-        long ways = 0;
-        for (long holdTime = 1; holdTime < time; holdTime++) {
-            long travelTime = time - holdTime;
-            long distance = holdTime * travelTime;
-            if (distance > recordDistance) {
-                ways++;
+    // Largest time and record magnitude for which time^2 - 4 * record can't overflow a long
+    private static final long LONG_PATH_MAX_TIME = 1L << 31;
+    private static final long LONG_PATH_MAX_RECORD = 1L << 60;
+
+    // Method to calculate the number of ways to beat the record for the single race.
+    // The winning hold times h are the integers strictly between the roots of
+    // h^2 - time * h + recordDistance = 0, and by symmetry they run from the first
+    // winner up to time - first, so only the first winner has to be found
+    static long calculateWaysToBeatRecord(long time, long recordDistance) {
+        if (time < 2) {
+            return 0;
+        }
+        if (time >= LONG_PATH_MAX_TIME || Math.abs(recordDistance) >= LONG_PATH_MAX_RECORD) {
+            return calculateWaysToBeatRecord(BigInteger.valueOf(time), BigInteger.valueOf(recordDistance)).longValueExact();
+        }
+
+        long discriminant = time * time - 4 * recordDistance;
+        if (discriminant <= 0) {
+            return 0; // Even the best hold time only equals the record
+        }
+        // The lower root is (time - sqrt) / 2; move to the exact first winner from there
+        long first = Math.max((time - isqrt(discriminant)) / 2, 1);
+        while (first <= time / 2 && first * (time - first) <= recordDistance) {
+            first++;
+        }
+        while (first > 1 && (first - 1) * (time - first + 1) > recordDistance) {
+            first--;
+        }
+        return Math.max(time - 2 * first + 1, 0);
+    }
+
+    // The same with BigInteger arithmetic, for races where the squares don't fit in a long
+    static BigInteger calculateWaysToBeatRecord(BigInteger time, BigInteger recordDistance) {
+        BigInteger two = BigInteger.TWO;
+        if (time.compareTo(two) < 0) {
+            return BigInteger.ZERO;
+        }
+        BigInteger discriminant = time.multiply(time).subtract(recordDistance.shiftLeft(2));
+        if (discriminant.signum() <= 0) {
+            return BigInteger.ZERO;
+        }
+        BigInteger half = time.shiftRight(1);
+        BigInteger first = time.subtract(isqrt(discriminant)).shiftRight(1).max(BigInteger.ONE);
+        while (first.compareTo(half) <= 0 && first.multiply(time.subtract(first)).compareTo(recordDistance) <= 0) {
+            first = first.add(BigInteger.ONE);
+        }
+        while (first.compareTo(BigInteger.ONE) > 0) {
+            BigInteger previous = first.subtract(BigInteger.ONE);
+            if (previous.multiply(time.subtract(previous)).compareTo(recordDistance) <= 0) {
+                break;
             }
+            first = previous;
+        }
+        return time.subtract(first.shiftLeft(1)).add(BigInteger.ONE).max(BigInteger.ZERO);
+    }
+
+    // Largest r with r * r <= n. The double estimate is only a starting point; the
+    // corrections make it exact for every non-negative long. They divide rather than
+    // square, since squaring overflows once n reaches 3037000500^2
+    static long isqrt(long n) {
+        long root = (long) Math.sqrt((double) n);
+        while (root > 0 && root > n / root) {
+            root--;
+        }
+        while (root + 1 <= n / (root + 1)) {
+            root++;
+        }
+        return root;
+    }
+
+    // Largest r with r * r <= n for big n. BigInteger.sqrt refines at full precision all the
+    // way, which takes tens of seconds at millions of bits; here the root of the top half of
+    // the bits is found first, so one full-size Newton step and a correction are enough
+    static BigInteger isqrt(BigInteger n) {
+        if (n.bitLength() <= 2048) {
+            return n.sqrt();
+        }
+        int k = (n.bitLength() - 1) / 4;
+        BigInteger root = isqrt(n.shiftRight(2 * k)).shiftLeft(k);
+        root = root.add(n.divide(root)).shiftRight(1);
+        while (root.multiply(root).compareTo(n) > 0) {
+            root = root.subtract(BigInteger.ONE);
+        }
+        while (root.add(BigInteger.ONE).pow(2).compareTo(n) <= 0) {
+            root = root.add(BigInteger.ONE);
         }
-        return ways;
+        return root;
     }
 }
@@ -0,0 +1,169 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 6 - BoatRace
+// Score every race in a file on its own, and the single race
+// made by joining all the digits together, in one run
+// Usage : RaceBatch [file], default ./day6/race_results.txt
+// Leon Rees - 10 December 2023
+// ------------------------------------------------------------
+package day6;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class RaceBatch {
+
+    // Batches at least this big are scored on a parallel stream
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Both answers for one file
+    public record Result(long[] ways, BigInteger product, BigInteger concatenatedWays) {
+    }
+
+    // One race per index
+    private final long[] times;
+    private final long[] distances;
+
+    // All the digits of each line joined together, read as one number
+    private final BigInteger concatenatedTime;
+    private final BigInteger concatenatedDistance;
+
+    RaceBatch(long[] times, long[] distances, BigInteger concatenatedTime, BigInteger concatenatedDistance) {
+        if (times.length != distances.length) {
+            throw new IllegalArgumentException(times.length + " times but " + distances.length + " distances");
+        }
+        this.times = times;
+        this.distances = distances;
+        this.concatenatedTime = concatenatedTime;
+        this.concatenatedDistance = concatenatedDistance;
+    }
+
+    public static void main(String[] args) {
+        String filePath = args.length > 0 ? args[0] : "./day6/race_results.txt";
+        try {
+            Result result = load(Path.of(filePath)).evaluate();
+            System.out.println("Races: " + result.ways().length);
+            System.out.println("Product of the ways to beat each record: " + result.product());
+            System.out.println("Total number of ways to beat the record in the race: " + result.concatenatedWays());
+        } catch (NoSuchFileException e) {
+            System.out.println("File not found: " + e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Read the "Time:" and "Distance:" lines into one column each
+    public static RaceBatch load(Path file) throws IOException {
+        byte[] text = Files.readAllBytes(file);
+        Column times = null;
+        Column distances = null;
+        int lineStart = 0;
+        while (lineStart < text.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < text.length && text[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (startsWith(text, lineStart, "Time:")) {
+                times = Column.parse(text, lineStart + "Time:".length(), lineEnd);
+            } else if (startsWith(text, lineStart, "Distance:")) {
+                distances = Column.parse(text, lineStart + "Distance:".length(), lineEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (times == null || distances == null) {
+            throw new IOException(file + " needs a Time: line and a Distance: line");
+        }
+        return new RaceBatch(times.values(), distances.values(), times.concatenated(), distances.concatenated());
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    // Both answers. For a batch of millions of races the concatenated race has millions of
+    // digits and its square root takes far longer than all the single races together
+    public Result evaluate() {
+        long[] ways = waysPerRace();
+        return new Result(ways, product(ways, 0, ways.length),
+                BoatRace.calculateWaysToBeatRecord(concatenatedTime, concatenatedDistance));
+    }
+
+    // Ways to beat the record of each race. Each one is O(1), but the root corrections
+    // branch, so the loop is spread over cores rather than left to the vectorizer
+    public long[] waysPerRace() {
+        long[] ways = new long[times.length];
+        IntStream races = IntStream.range(0, times.length);
+        if (times.length >= PARALLEL_THRESHOLD) {
+            races = races.parallel();
+        }
+        races.forEach(i -> ways[i] = BoatRace.calculateWaysToBeatRecord(times[i], distances[i]));
+        return ways;
+    }
+
+    // Product of ways[from, to), split in halves so the big multiplications have balanced sizes
+    private static BigInteger product(long[] ways, int from, int to) {
+        if (to - from <= 16) {
+            BigInteger product = BigInteger.ONE;
+            for (int i = from; i < to; i++) {
+                product = product.multiply(BigInteger.valueOf(ways[i]));
+            }
+            return product;
+        }
+        int middle = (from + to) >>> 1;
+        return product(ways, from, middle).multiply(product(ways, middle, to));
+    }
+
+    private static boolean startsWith(byte[] text, int from, String prefix) {
+        if (from + prefix.length() > text.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text[from + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The numbers of one line, and all its digits joined together
+    private record Column(long[] values, BigInteger concatenated) {
+        static Column parse(byte[] text, int from, int to) {
+            long[] values = new long[16];
+            int count = 0;
+            StringBuilder digits = new StringBuilder();
+            int i = from;
+            while (i < to) {
+                if (text[i] < '0' || text[i] > '9') {
+                    i++;
+                    continue;
+                }
+                long value = 0;
+                while (i < to && text[i] >= '0' && text[i] <= '9') {
+                    value = Math.addExact(Math.multiplyExact(value, 10), text[i] - '0');
+                    digits.append((char) text[i]);
+                    i++;
+                }
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = value;
+            }
+            BigInteger concatenated = digits.isEmpty() ? BigInteger.ZERO : parseDigits(digits, 0, digits.length());
+            return new Column(Arrays.copyOf(values, count), concatenated);
+        }
+
+        // new BigInteger(String) takes time quadratic in the length, which is minutes for a big
+        // batch; joining the two halves with one multiplication each keeps it subquadratic
+        private static BigInteger parseDigits(CharSequence digits, int from, int to) {
+            if (to - from <= 18) {
+                return BigInteger.valueOf(Long.parseLong(digits, from, to, 10));
+            }
+            int middle = (from + to) >>> 1;
+            BigInteger high = parseDigits(digits, from, middle);
+            return high.multiply(BigInteger.TEN.pow(to - middle)).add(parseDigits(digits, middle, to));
+        }
+    }
+}
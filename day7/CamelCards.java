@@ -13,108 +13,17 @@ class CamelCards {
     static class Hand implements Comparable<Hand> {
         String handString;
         int bid;
-        long handScore; // To store the calculated hand score
+        int handScore; // Hand type and card ranks packed by HandKey, so it sorts in hand order
 
         Hand(String handString, int bid) {
             this.handString = handString;
             this.bid = bid;
-            this.handScore = (determineHandType() * 10000000000L) + calculateHandScore(); // Calculate the hand score
-        }
-
-        private int determineHandType() {
-            // Sort the hand string alphabetically
-            char[] handArray = handString.toCharArray();
-            Arrays.sort(handArray);
-            String tempHandString = jokersHigh(new String(handArray));
-            System.out.println("High : " + tempHandString);
-        
-            // Count the frequency of each card
-            Map<Character, Integer> frequencyMap = new HashMap<>();
-            for (char c : tempHandString.toCharArray()) {
-                frequencyMap.put(c, frequencyMap.getOrDefault(c, 0) + 1);
-            }        
-            // Standard hand type determination
-            return determineStandardHandType(frequencyMap);
-        }
-        
-      
-        private String jokersHigh(String handString) {
-            if (!handString.contains("J")) {
-                return handString; // No jokers to replace
-            }
-        
-            // Count the frequency of each non-Joker card
-            Map<Character, Integer> frequencyMap = new HashMap<>();
-            for (char c : handString.toCharArray()) {
-                if (c != 'J') {
-                    frequencyMap.put(c, frequencyMap.getOrDefault(c, 0) + 1);
-                }
-            }
-        
-            // Find the most frequent card, preferring the highest-ranking card in case of a tie
-            char mostFrequentCard = '2'; // Start with the lowest card
-            int maxFrequency = 0;
-            for (Map.Entry<Character, Integer> entry : frequencyMap.entrySet()) {
-                char currentCard = entry.getKey();
-                int currentFrequency = entry.getValue();
-                if (currentFrequency > maxFrequency || (currentFrequency == maxFrequency && "A23456789TJQK".indexOf(currentCard) > "A23456789TJQK".indexOf(mostFrequentCard))) {
-                    mostFrequentCard = currentCard;
-                    maxFrequency = currentFrequency;
-                }
-            }
-        
-            // Replace all Jokers with the most frequent card
-            return handString.replace('J', mostFrequentCard);
-        }
-        
-         
-        private int determineStandardHandType(Map<Character, Integer> frequencyMap) {
-            boolean hasThree = false;
-            boolean hasTwo = false;
-            int maxFrequency = Collections.max(frequencyMap.values());
-        
-            if (maxFrequency == 5) {
-                return 6; // Five of a Kind
-            } else if (maxFrequency == 4) {
-                return 5; // Four of a Kind
-            } else if (maxFrequency == 3) {
-                hasThree = true;
-            }
-        
-            for (int freq : frequencyMap.values()) {
-                if (freq == 2) {
-                    if (hasThree) {
-                        return 4; // Full House
-                    }
-                    if (hasTwo) {
-                        return 2; // Two Pairs
-                    }
-                    hasTwo = true;
-                }
-            }
-        
-            if (hasThree) {
-                return 3; // Three of a Kind
-            }
-            if (hasTwo) {
-                return 1; // One Pair
-            }
-            return 0; // High Card
-        }
-        
-        private long calculateHandScore() {
-            long score = 0;
-            for (int i = 0; i < handString.length(); i++) {
-                char card = handString.charAt(i);
-                int cardValue = card == 'J' ? 1 : "23456789TQKA".indexOf(card) + 2; // J is the weakest
-                score += cardValue * Math.pow(10, (4 - i) * 2);
-            }
-            return score;
+            this.handScore = HandKey.encode(handString);
         }
 
         @Override
         public int compareTo(Hand other) {
-            return Long.compare(this.handScore, other.handScore);
+            return Integer.compare(this.handScore, other.handScore);
         }
     }
 
@@ -0,0 +1,79 @@
+// ------------------------------------------------------------
+// Advent of Code 2023
+// Day 7 - CamelCards
+// Pack a hand into one int that sorts in hand order: the type
+// in the high bits, then each card's rank as a 4-bit nibble
+// Leon Rees - 10 December 2023
+// ------------------------------------------------------------
+package day7;
+
+final class HandKey {
+    static final int CARDS = 5;
+    static final int TYPE_SHIFT = 4 * CARDS;
+
+    // Hand types, weakest first
+    static final int HIGH_CARD = 0;
+    static final int ONE_PAIR = 1;
+    static final int TWO_PAIRS = 2;
+    static final int THREE_OF_A_KIND = 3;
+    static final int FULL_HOUSE = 4;
+    static final int FOUR_OF_A_KIND = 5;
+    static final int FIVE_OF_A_KIND = 6;
+
+    private static final int JOKER = 1; // J is wild and the weakest card
+
+    // Rank of each card character, 0 for anything that isn't a card
+    private static final byte[] RANKS = new byte[128];
+
+    // Type from the two largest card counts once the jokers join the largest:
+    // TYPES[largest][second largest]
+    private static final byte[][] TYPES = new byte[CARDS + 1][CARDS + 1];
+
+    static {
+        String cards = "J23456789TQKA";
+        for (int i = 0; i < cards.length(); i++) {
+            RANKS[cards.charAt(i)] = (byte) (i + 1);
+        }
+        TYPES[5][0] = FIVE_OF_A_KIND;
+        TYPES[4][1] = FOUR_OF_A_KIND;
+        TYPES[3][2] = FULL_HOUSE;
+        TYPES[3][1] = THREE_OF_A_KIND;
+        TYPES[2][2] = TWO_PAIRS;
+        TYPES[2][1] = ONE_PAIR;
+        TYPES[1][1] = HIGH_CARD;
+    }
+
+    private HandKey() {
+    }
+
+    static int encode(CharSequence hand) {
+        if (hand.length() != CARDS) {
+            throw new IllegalArgumentException("A hand has " + CARDS + " cards: " + hand);
+        }
+        int key = 0;
+        long counts = 0; // Nibble r counts the cards of rank r
+        for (int i = 0; i < CARDS; i++) {
+            char card = hand.charAt(i);
+            int rank = card < RANKS.length ? RANKS[card] : 0;
+            if (rank == 0) {
+                throw new IllegalArgumentException("Not a card: " + card + " in " + hand);
+            }
+            key = (key << 4) | rank;
+            counts += 1L << (4 * rank);
+        }
+
+        int jokers = (int) (counts >>> (4 * JOKER)) & 0xF;
+        int largest = 0;
+        int second = 0;
+        for (long rest = counts >>> (4 * (JOKER + 1)); rest != 0; rest >>>= 4) {
+            int count = (int) rest & 0xF;
+            if (count > largest) {
+                second = largest;
+                largest = count;
+            } else if (count > second) {
+                second = count;
+            }
+        }
+        return (TYPES[largest + jokers][second] << TYPE_SHIFT) | key;
+    }
+}